@@ -0,0 +1,128 @@
+package com.dooku.bench;
+
+import com.dooku.Board;
+import com.dooku.PortfolioSolver;
+import com.dooku.batch.PuzzleFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for {@link Board#solve(Board.Engine)} over the bundled corpora in
+ * src/jmh/resources/puzzles. Each invocation loads the next puzzle of the corpus onto a reused
+ * board and solves it, so a score is per puzzle, averaged over the corpus. Loading costs well
+ * under a microsecond next to the solve itself. 25x25-sparse-hard holds the four slowest puzzles
+ * of that run on their own - dancing links takes seconds on two of them, so skip it for a quick pass.
+ *
+ * The harness lives in the {@code jmh} profile and is not built by default:
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="SolveBenchmark -p corpus=17-clue -p recording=false"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="SolveBenchmark -p corpus=25x25-sparse -p engine=SAT,DANCING_LINKS"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="SolveBenchmark -p corpus=hardest -p engine=BACKTRACKING -p mode=PARALLEL,PORTFOLIO"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"easy", "17-clue", "hardest", "16x16", "25x25", "16x16-sparse", "25x25-sparse",
+            "25x25-sparse-hard"})
+    public String corpus;
+
+    @Param({"BACKTRACKING", "DANCING_LINKS", "SAT"})
+    public Board.Engine engine;
+
+    /** Whether the board records every step into observableState, as it does for the UI */
+    @Param({"false", "true"})
+    public boolean recording;
+
+    /** Whether a recording board records the search as it goes, as the UI does, which keeps 9x9 off the kernel */
+    @Param({"false"})
+    public boolean traceSearch;
+
+    /** ENGINE solves with the engine above; PARALLEL and PORTFOLIO ignore it (see {@link SolveMode}) */
+    @Param({"ENGINE"})
+    public SolveMode mode;
+
+    /** Worker threads for PARALLEL, 0 for one per core */
+    @Param({"0"})
+    public int workers;
+
+    private String[] puzzles;
+    private Board board;
+    private PortfolioSolver portfolio;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        puzzles = readCorpus(corpus);
+        int size = PuzzleFormat.sizeForLength(puzzles[0].length());
+        board = new Board((int) Math.round(Math.sqrt(size)));
+        board.setRecording(recording);
+        board.setTraceSearch(traceSearch);
+        if (workers == 0) workers = Runtime.getRuntime().availableProcessors();
+        if (mode == SolveMode.PORTFOLIO) portfolio = new PortfolioSolver();
+    }
+
+    /**
+     * The portfolio's wins per strategy, printed with the trial's results
+     */
+    @TearDown
+    public void tearDown() {
+        if (portfolio != null) System.out.println(portfolio);
+    }
+
+    @Benchmark
+    public boolean solve() {
+        String puzzle = puzzles[next];
+        next = (next + 1) % puzzles.length;
+
+        board.clear();
+        PuzzleFormat.load(board, puzzle);
+        mode.solve(board, engine, workers, portfolio);
+        return board.isSolved();
+    }
+
+    /**
+     * Puzzle lines of a bundled corpus, skipping blank and '#' lines
+     */
+    static String[] readCorpus(String name) throws IOException {
+        InputStream in = SolveBenchmark.class.getResourceAsStream("/puzzles/" + name + ".txt");
+        if (in == null) {
+            throw new IOException("No corpus named " + name);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) lines.add(line);
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+}
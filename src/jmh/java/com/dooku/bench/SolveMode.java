@@ -0,0 +1,39 @@
+package com.dooku.bench;
+
+import com.dooku.Board;
+import com.dooku.PortfolioSolver;
+
+/**
+ * How a benchmark solves each puzzle, as a {@code mode} parameter:
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="SolveBenchmark -p corpus=hardest -p engine=BACKTRACKING -p mode=ENGINE,PARALLEL,PORTFOLIO"
+ * </pre>
+ *
+ * PARALLEL and PORTFOLIO pick their own searches, so they ignore the engine parameter; pin it to
+ * one value to avoid measuring the same thing three times.
+ */
+public enum SolveMode {
+
+    /** {@link Board#solve(Board.Engine)} with the engine parameter */
+    ENGINE,
+
+    /** {@link Board#solveParallel(int)} with the workers parameter */
+    PARALLEL,
+
+    /** {@link Board#solvePortfolio(PortfolioSolver)} with the default strategies, one per core */
+    PORTFOLIO;
+
+    void solve(Board board, Board.Engine engine, int workers, PortfolioSolver portfolio) {
+        switch (this) {
+            case PARALLEL:
+                board.solveParallel(workers);
+                break;
+            case PORTFOLIO:
+                board.solvePortfolio(portfolio);
+                break;
+            default:
+                board.solve(engine);
+        }
+    }
+}
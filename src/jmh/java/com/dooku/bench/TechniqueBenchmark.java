@@ -0,0 +1,78 @@
+package com.dooku.bench;
+
+import com.dooku.Board;
+import com.dooku.Technique;
+import com.dooku.batch.PuzzleFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Total solve time of the backtracker with different technique chains in front of it, for
+ * tuning {@link Board#setTechniques}. Steps are recorded so 9x9 boards stay on the generic search
+ * rather than the bitboard kernel, whatever the chain.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="TechniqueBenchmark -p chain=NONE,ALL,X_WING"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TechniqueBenchmark {
+
+    @Param({"hardest", "17-clue", "16x16"})
+    public String corpus;
+
+    /** NONE, ALL, LOCKED (pointing plus box/line), SUBSETS (pairs and triples) or one technique name */
+    @Param({"NONE", "LOCKED", "SUBSETS", "ALL"})
+    public String chain;
+
+    private String[] puzzles;
+    private Board board;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        puzzles = SolveBenchmark.readCorpus(corpus);
+        int size = PuzzleFormat.sizeForLength(puzzles[0].length());
+        board = new Board((int) Math.round(Math.sqrt(size)));
+        board.setTechniques(techniques(chain));
+    }
+
+    @Benchmark
+    public boolean solve() {
+        String puzzle = puzzles[next];
+        next = (next + 1) % puzzles.length;
+
+        board.clear();
+        PuzzleFormat.load(board, puzzle);
+        board.solve();
+        return board.isSolved();
+    }
+
+    static EnumSet<Technique> techniques(String chain) {
+        switch (chain) {
+            case "NONE":    return EnumSet.noneOf(Technique.class);
+            case "ALL":     return EnumSet.allOf(Technique.class);
+            case "LOCKED":  return EnumSet.of(Technique.POINTING_PAIR, Technique.BOX_LINE_REDUCTION);
+            case "SUBSETS": return EnumSet.range(Technique.NAKED_PAIR, Technique.HIDDEN_TRIPLE);
+            default:        return EnumSet.of(Technique.valueOf(chain));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.dooku.bench;
+
+import com.dooku.Board;
+import com.dooku.PortfolioSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solve time on 36x36 and 49x49 grids, the sizes that need the full 64-bit candidate masks. The
+ * one-line puzzle format has no characters past 35, so the corpus is generated: shuffled pattern
+ * grids with a fraction of the cells blanked, seeded so every run sees the same puzzles. Not
+ * guaranteed unique, but always solvable. Much past 40% blanks these sizes stop finishing in
+ * reasonable time with the backtracker or dancing links; the SAT engine holds on a little longer.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="WideGridBenchmark -p n=7"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="WideGridBenchmark -p engine=BACKTRACKING -p mode=PORTFOLIO"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WideGridBenchmark {
+
+    private static final int PUZZLES = 8;
+
+    /** Grid dimension: 6 for 36x36, 7 for 49x49 */
+    @Param({"6", "7"})
+    public int n;
+
+    @Param({"0.3", "0.35"})
+    public double blankFraction;
+
+    @Param({"BACKTRACKING", "DANCING_LINKS", "SAT"})
+    public Board.Engine engine;
+
+    /** ENGINE solves with the engine above; PARALLEL and PORTFOLIO ignore it (see {@link SolveMode}) */
+    @Param({"ENGINE"})
+    public SolveMode mode;
+
+    /** Worker threads for PARALLEL, 0 for one per core */
+    @Param({"0"})
+    public int workers;
+
+    private int[][] puzzles;
+    private Board board;
+    private PortfolioSolver portfolio;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(n * 1000L + Math.round(blankFraction * 100));
+        puzzles = new int[PUZZLES][];
+        for (int p = 0; p < PUZZLES; p++) {
+            puzzles[p] = puzzle(n, blankFraction, random);
+        }
+        board = new Board(n);
+        board.setRecording(false);
+        if (workers == 0) workers = Runtime.getRuntime().availableProcessors();
+        if (mode == SolveMode.PORTFOLIO) portfolio = new PortfolioSolver();
+    }
+
+    /**
+     * The portfolio's wins per strategy, printed with the trial's results
+     */
+    @TearDown
+    public void tearDown() {
+        if (portfolio != null) System.out.println(portfolio);
+    }
+
+    @Benchmark
+    public boolean solve() {
+        int[] puzzle = puzzles[next];
+        next = (next + 1) % puzzles.length;
+
+        int size = n * n;
+        board.clear();
+        for (int cell = 0; cell < puzzle.length; cell++) {
+            if (puzzle[cell] != 0) board.placeDigit(cell / size, cell % size, puzzle[cell]);
+        }
+        mode.solve(board, engine, workers, portfolio);
+        return board.isSolved();
+    }
+
+    /**
+     * Pattern grid with its digits, bands, stacks and the lines within them shuffled, then blanked
+     */
+    static int[] puzzle(int n, double blankFraction, Random random) {
+        int size = n * n;
+        int[] digits = permutation(size, random);
+        int[] rows = bandedPermutation(n, random);
+        int[] cols = bandedPermutation(n, random);
+
+        int[] grid = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int r = rows[row], c = cols[col];
+                int value = digits[(n * (r % n) + r / n + c) % size] + 1;
+                grid[row * size + col] = random.nextDouble() < blankFraction ? 0 : value;
+            }
+        }
+        return grid;
+    }
+
+    private static int[] permutation(int length, Random random) {
+        int[] perm = new int[length];
+        for (int i = 0; i < length; i++) perm[i] = i;
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = perm[i]; perm[i] = perm[j]; perm[j] = tmp;
+        }
+        return perm;
+    }
+
+    private static int[] bandedPermutation(int n, Random random) {
+        int[] bands = permutation(n, random);
+        int[] perm = new int[n * n];
+        for (int band = 0; band < n; band++) {
+            int[] inner = permutation(n, random);
+            for (int k = 0; k < n; k++) perm[band * n + k] = bands[band] * n + inner[k];
+        }
+        return perm;
+    }
+}
@@ -1,71 +1,267 @@
 package com.dooku;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Board {
     
+    /**
+     * Largest grid dimension a board takes: candidate masks are one long with bit d for digit d,
+     * which holds digits up to 63, so the biggest grid is 49x49
+     */
+    public static final int MAX_N = 7;
+    
     private final int n; // Grid dimension (3 for 9x9, 2 for 4x4, etc.)
     private final int size; // Total size (9 for 9x9, 4 for 4x4, etc.)
+    private final Geometry geometry;    // Shared coordinate and peer tables for this size
     private int[][] board; // Simple 2D representation
     
-    // Bitwise constraint tracking - much faster than HashMaps
-    private int[] rowConstraints;    // Bitmask of used numbers in each row
-    private int[] colConstraints;    // Bitmask of used numbers in each column  
-    private int[] boxConstraints;    // Bitmask of used numbers in each box
+    // Bitwise constraint tracking - much faster than HashMaps. Masks are longs throughout so
+    // 36x36 and 49x49 fit; on a 64-bit JVM they cost the same as ints for the smaller grids
+    private long[] rowConstraints;    // Bitmask of used numbers in each row
+    private long[] colConstraints;    // Bitmask of used numbers in each column  
+    private long[] boxConstraints;    // Bitmask of used numbers in each box
+    
+    // Incrementally maintained candidates - one array load per query instead of OR-ing three masks
+    private final long allCandidates; // Bits 1 to size
+    private long[] candidates;       // Bitmask of possible numbers per cell (row * size + col), 0 for filled cells
+    private long[] eliminated;       // Numbers ruled out per cell by techniques beyond the unit masks
+    private int emptyCount;          // Number of cells still holding 0
+    
+    // Where each digit can still go in each unit, kept in step with candidates. Units are rows
+    // (0..size-1), then columns, then boxes; entry unit * size + (digit - 1) has bit k set when
+    // the unit's k-th cell (column, row, or row-major position in the box) can take the digit
+    private long[] positions;
+    
+    // Singles waiting to be looked at: cell indices for cells down to one candidate, and
+    // cells + unit * size + (digit - 1) for digits down to one place in a unit. Each item is
+    // queued at most once, so the stack never outgrows 4 * size * size
+    private int[] worklist;
+    private boolean[] queued;
+    private int worklistSize;
+    private boolean sweepPending = true;    // Board changed outside the search - positions are stale
+                                            // until propagate() rebuilds them and queues everything
+    
+    // Empty cells bucketed by candidate count, as doubly linked lists threaded through two arrays,
+    // so the search can pick its branch cell without scanning the grid. bucketOf is -1 for filled
+    // cells. Maintained alongside positions, and rebuilt with them
+    private int[] bucketHead;
+    private int[] bucketNext;
+    private int[] bucketPrev;
+    private int[] bucketOf;
     
-    // For UI animation - maintains compatibility with existing system
-    public Deque<int[]> observableState = new LinkedList<>();
+    // Undo trail, in the order things happened. A placement is its cell index (row * size + col);
+    // an elimination is the cell's previous eliminated mask followed by -(cell + 1). A search level
+    // remembers the trail size on entry and rewinds to it, so backtracking allocates nothing
+    private long[] trail;
+    private int trailSize;
+    
+    // Deductions tried when the singles run dry, in Technique order
+    private Technique[] techniqueChain = new Technique[0];
+    private final TechniqueStats techniqueStats = new TechniqueStats();
+    
+    // For UI animation - one packed long per step (cell index = row * size + col)
+    public final StepLog observableState = new StepLog();
+    private StepChannel stepChannel = null;     // When set, steps stream here instead of into observableState
+    private boolean recording = true;           // Off for boards nobody animates, e.g. parallel branch copies
+    private boolean traceSearch = false;        // Record every placement and take-back, not just the solution
     
     private boolean isUnsolved = true;
     
+    // Solution counting - the search only stops at a full grid once this many have been seen
+    private int solutionLimit = 1;
+    private int solutionsFound = 0;
+    
+    // Cooperative cancellation - polled once per search node, the clock only every few hundred
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+    private static final int RANDOM_TIE_SCAN = 8;   // Most constrained cells considered by RANDOM_MOST_CONSTRAINED
+    private volatile boolean cancelRequested = false;
+    private long deadline = 0;          // System.nanoTime() value to give up at, 0 for none
+    private long nodeLimit = 0;         // Search nodes to give up after, 0 for none
+    private int clockCountdown = CLOCK_CHECK_INTERVAL;
+    private boolean aborted = false;    // Last solve was stopped by cancel() or the deadline
+    private volatile AtomicBoolean stopFlag = null;    // Shared between the boards of one parallel solve
+    
+    private Sudoku9 kernel = null;      // Bitboard search for 9x9, created on first use
+    
+    // What the current or last search did, and who wants to hear about it while it runs
+    private final SolveStats solveStats = new SolveStats();
+    private SolveStats.ProgressListener progressListener = null;
+    private long progressIntervalNanos;
+    private long nextProgress;
+    private int searchDepth;            // Guesses on the current path of the backtracker
+    private Branching branching = Branching.MOST_CONSTRAINED;
+    private ValueOrder valueOrder = ValueOrder.ASCENDING;
+    private long searchSeed = 0;
+    private SplittableRandom searchRandom = null;   // Reseeded from searchSeed by every solve that needs it
+    private boolean budgetStopsAll = true;          // A spent budget raises the shared stop flag - not for portfolio racers
+    
+    private SolutionCache solutionCache = null;     // Consulted by solve() before searching
+    
+    // Anytime solving - how the last solve ended, and the fullest grid its search reached
+    private Status status = null;
+    private boolean trackingPartial = false;    // Only while solveWithin() runs
+    private int[] bestPartial = null;
+    private int bestPartialEmpty;
+    
     
     public Board(int n) {
+        if (n < 1 || n > MAX_N) {
+            throw new IllegalArgumentException("Grid dimension must be between 1 and " + MAX_N);
+        }
         this.n = n;
         this.size = n * n;
+        this.geometry = Geometry.of(n);
         this.board = new int[size][size];
-        this.rowConstraints = new int[size];
-        this.colConstraints = new int[size];
-        this.boxConstraints = new int[size];
+        this.rowConstraints = new long[size];
+        this.colConstraints = new long[size];
+        this.boxConstraints = new long[size];
+        this.allCandidates = (1L << (size + 1)) - 2;
+        this.candidates = new long[size * size];
+        Arrays.fill(candidates, allCandidates);
+        this.eliminated = new long[size * size];
+        this.emptyCount = size * size;
+        this.trail = new long[size * size];  // Enough for the placements; grows if techniques eliminate
+        this.positions = new long[3 * size * size];
+        this.worklist = new int[4 * size * size];
+        this.queued = new boolean[4 * size * size];
+        this.bucketHead = new int[size + 1];
+        this.bucketNext = new int[size * size];
+        this.bucketPrev = new int[size * size];
+        this.bucketOf = new int[size * size];
+    }
+    
+    /**
+     * Independent copy of another board's grid and constraint state. Steps, solve status and
+     * cancellation are not carried over; the deadline, the node limit, the search order and the
+     * technique chain are
+     */
+    public Board(Board other) {
+        this.n = other.n;
+        this.size = other.size;
+        this.geometry = other.geometry;
+        this.board = new int[size][];
+        for (int row = 0; row < size; row++) {
+            this.board[row] = other.board[row].clone();
+        }
+        this.rowConstraints = other.rowConstraints.clone();
+        this.colConstraints = other.colConstraints.clone();
+        this.boxConstraints = other.boxConstraints.clone();
+        this.allCandidates = other.allCandidates;
+        this.candidates = other.candidates.clone();
+        this.eliminated = other.eliminated.clone();
+        this.emptyCount = other.emptyCount;
+        this.trail = new long[size * size];
+        this.positions = new long[3 * size * size];
+        this.worklist = new int[4 * size * size];
+        this.queued = new boolean[4 * size * size];
+        this.bucketHead = new int[size + 1];
+        this.bucketNext = new int[size * size];
+        this.bucketPrev = new int[size * size];
+        this.bucketOf = new int[size * size];
+        this.techniqueChain = other.techniqueChain;
+        this.deadline = other.deadline;
+        this.nodeLimit = other.nodeLimit;
+        this.branching = other.branching;
+        this.valueOrder = other.valueOrder;
+        this.searchSeed = other.searchSeed;
+        this.traceSearch = other.traceSearch;
+        seedSearch();   // Parallel branches search without a startStats() of their own
     }
     
     /**
-     * FIXED: Converts UI's 4D coordinates (i,j,k,l) to internal 2D (row,col)
+     * Append a step for the UI animation (value=0 means backtrack)
      */
-    private int[] convert4Dto2D(int i, int j, int k, int l) {
-        int actualRow = i * n + k;  // i=box row, k=cell row within box
-        int actualCol = j * n + l;  // j=box col, l=cell col within box
-        return new int[]{actualRow, actualCol};
+    void recordStep(int row, int col, int value) {
+        if (!recording) return;
+        if (stepChannel != null) {
+            stepChannel.publish(StepLog.pack(row * size + col, value));
+        } else {
+            observableState.add(row * size + col, value);
+        }
     }
     
     /**
-     * FIXED: Converts internal 2D (row,col) back to UI's 4D (i,j,k,l)
+     * Turn step recording off (or back on) - nothing reaches observableState or the channel while off
      */
-    private int[] convert2Dto4D(int row, int col) {
-        int i = row / n;    // which box row
-        int j = col / n;    // which box col
-        int k = row % n;    // row within box
-        int l = col % n;    // col within box
-        return new int[]{i, j, k, l};
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+    
+    public boolean isRecording() {
+        return recording;
+    }
+    
+    /**
+     * Record the search as it goes - every guess, and a take-back step for every dead end - the
+     * way the UI animates it. Off by default, which lets a 9x9 solve run on the bitboard kernel
+     * and record its solution afterwards, one step per filled cell. Other sizes search with the
+     * generic backtracker and record as they go either way
+     */
+    public void setTraceSearch(boolean traceSearch) {
+        this.traceSearch = traceSearch;
+    }
+    
+    public boolean isTracingSearch() {
+        return traceSearch;
+    }
+    
+    /**
+     * Stream steps to a consumer on another thread while solving, instead of collecting them
+     * all in observableState. Pass null to go back to the log
+     */
+    public void setStepChannel(StepChannel channel) {
+        this.stepChannel = channel;
     }
     
     /**
      * Place digit - maintains UI compatibility
      */
     public boolean placeDigit(int i, int j, int k, int l, int value) {
-        int[] coords = convert4Dto2D(i, j, k, l);
-        return placeDigitInternal(coords[0], coords[1], value);
+        sweepPending = true;
+        return placeDigitInternal(i * n + k, j * n + l, value);     // i, j the box; k, l the cell within it
+    }
+    
+    /**
+     * Place digit by row and column - for callers without the UI's box coordinates
+     */
+    public boolean placeDigit(int row, int col, int value) {
+        sweepPending = true;
+        return placeDigitInternal(row, col, value);
+    }
+    
+    /**
+     * Empty the grid so the board can be reused for another puzzle of the same size
+     */
+    public void clear() {
+        for (int row = 0; row < size; row++) {
+            Arrays.fill(board[row], 0);
+        }
+        Arrays.fill(rowConstraints, 0);
+        Arrays.fill(colConstraints, 0);
+        Arrays.fill(boxConstraints, 0);
+        Arrays.fill(candidates, allCandidates);
+        Arrays.fill(eliminated, 0);
+        emptyCount = size * size;
+        trailSize = 0;
+        sweepPending = true;
+        observableState.clear();
+        isUnsolved = true;
+        aborted = false;
+        status = null;
+        bestPartial = null;
     }
     
     /**
      * Internal place digit with 2D coordinates
      */
-    private boolean placeDigitInternal(int row, int col, int value) {
+    boolean placeDigitInternal(int row, int col, int value) {
         if (value < 1 || value > size) return false;
         
         // Remove previous value if exists
         removeDigitInternal(row, col);
 
-        int bitMask = 1 << value;
+        long bitMask = 1L << value;
         int boxIndex = getBoxIndex(row, col);
         
         // Check if placement is valid
@@ -81,6 +277,27 @@ public class Board {
         colConstraints[col] |= bitMask;
         boxConstraints[boxIndex] |= bitMask;
         
+        // Cell is no longer open, and no peer can take this value any more
+        emptyCount--;
+        long clearMask = ~bitMask;
+        int cell = row * size + col;
+        int[] peers = geometry.peers;
+        int first = cell * geometry.peerCount, last = first + geometry.peerCount;
+        if (sweepPending) {
+            // Loading - nothing to track, so just clear the bits
+            candidates[cell] = 0;
+            for (int p = first; p < last; p++) {
+                candidates[peers[p]] &= clearMask;
+            }
+            return true;
+        }
+        
+        setCandidates(cell, 0);
+        for (int p = first; p < last; p++) {
+            int peer = peers[p];
+            setCandidates(peer, candidates[peer] & clearMask);
+        }
+        
         return true;
     }
     
@@ -88,271 +305,1188 @@ public class Board {
      * Remove digit - maintains UI compatibility  
      */
     public void removeDigit(int i, int j, int k, int l) {
-        int[] coords = convert4Dto2D(i, j, k, l);
-        removeDigitInternal(coords[0], coords[1]);
+        sweepPending = true;
+        removeDigitInternal(i * n + k, j * n + l);
+    }
+    
+    /**
+     * Remove digit by row and column - for callers without the UI's box coordinates
+     */
+    public void removeDigit(int row, int col) {
+        sweepPending = true;
+        removeDigitInternal(row, col);
     }
     
     /**
      * Internal remove digit with 2D coordinates
      */
-    private void removeDigitInternal(int row, int col) {
+    void removeDigitInternal(int row, int col) {
         int value = board[row][col];
         if (value == 0) return;
         
-        int bitMask = 1 << value;
+        long bitMask = 1L << value;
         int boxIndex = getBoxIndex(row, col);
         
         board[row][col] = 0;
+        isUnsolved = true;
         rowConstraints[row] &= ~bitMask;
         colConstraints[col] &= ~bitMask;
         boxConstraints[boxIndex] &= ~bitMask;
+        emptyCount++;
+        
+        // The value may be possible again for the cell and its peers - unless another unit still blocks it
+        int cell = row * size + col;
+        int[] peers = geometry.peers;
+        refreshCandidates(cell);
+        for (int p = cell * geometry.peerCount, last = p + geometry.peerCount; p < last; p++) {
+            refreshCandidates(peers[p]);
+        }
+        // A cell that came back with no candidates at all never changed mask, so bucket it here
+        if (!sweepPending && bucketOf[cell] < 0) link(cell, 0);
     }
     
     /**
-     * Get box index for given row,col
+     * Fill or empty a cell touching only the grid and unit masks, for engines that keep their own
+     * view of what is possible (dancing links). Candidates and positions go stale until
+     * {@link #rebuildCandidates()}; the caller guarantees the placement is legal
+     */
+    void writeCell(int row, int col, int value) {
+        int old = board[row][col];
+        if (old != 0) {
+            long bitMask = ~(1L << old);
+            rowConstraints[row] &= bitMask;
+            colConstraints[col] &= bitMask;
+            boxConstraints[getBoxIndex(row, col)] &= bitMask;
+            emptyCount++;
+        }
+        board[row][col] = value;
+        if (value != 0) {
+            long bitMask = 1L << value;
+            rowConstraints[row] |= bitMask;
+            colConstraints[col] |= bitMask;
+            boxConstraints[getBoxIndex(row, col)] |= bitMask;
+            emptyCount--;
+        }
+    }
+    
+    /**
+     * Recompute every cell's candidates and every position mask from the grid after writeCell()
      */
-    private int getBoxIndex(int row, int col) {
-        return (row / n) * n + (col / n);
+    void rebuildCandidates() {
+        sweepPending = true;    // Positions follow on the next propagate()
+        for (int cell = 0; cell < size * size; cell++) {
+            candidates[cell] = 0;
+            refreshCandidates(cell);
+        }
+        clearWorklist();
     }
     
     /**
-     * Get possible values for a cell using bitwise operations
+     * Recompute the cached candidates of a single cell from the unit masks
      */
-    private int getPossibilities(int row, int col) {
-        if (board[row][col] != 0) return 0;
+    private void refreshCandidates(int cell) {
+        int row = geometry.rowOf[cell], col = geometry.colOf[cell];
+        if (board[row][col] != 0) return;
         
-        int boxIndex = getBoxIndex(row, col);
-        int usedBits = rowConstraints[row] | colConstraints[col] | boxConstraints[boxIndex];
+        long usedBits = rowConstraints[row] | colConstraints[col] | boxConstraints[geometry.boxOf[cell]];
+        setCandidates(cell, allCandidates & ~usedBits & ~eliminated[cell]);
+    }
+    
+    /**
+     * The one place a cell's candidates change: keeps the unit position masks in step and queues
+     * whatever just became a single (or ran out of options)
+     */
+    private void setCandidates(int cell, long mask) {
+        long old = candidates[cell];
+        if (old == mask) return;
+        candidates[cell] = mask;
+        if (!sweepPending) track(cell, old, mask);  // While loading, positions get rebuilt in one go later
+    }
+    
+    /**
+     * Update the position masks for a cell's candidates going from old to mask. Kept apart from
+     * setCandidates() so that one stays small enough to inline into the peer loops
+     */
+    private void track(int cell, long old, long mask) {
+        int row = geometry.rowOf[cell], col = geometry.colOf[cell];
+        int box = geometry.boxOf[cell], boxPos = geometry.boxPosOf[cell];
+        int rowBase = row * size - 1, colBase = (size + col) * size - 1, boxBase = (2 * size + box) * size - 1;
         
-        // All possible values except used ones
-        int allPossible = (1 << (size + 1)) - 2; // Bits 1 to size
-        return allPossible & ~usedBits;
+        for (long added = mask & ~old; added != 0; added &= added - 1) {
+            int digit = Long.numberOfTrailingZeros(added);
+            positions[rowBase + digit] |= 1L << col;
+            positions[colBase + digit] |= 1L << row;
+            positions[boxBase + digit] |= 1L << boxPos;
+        }
+        for (long removed = old & ~mask; removed != 0; removed &= removed - 1) {
+            int digit = Long.numberOfTrailingZeros(removed);
+            if (Long.bitCount(positions[rowBase + digit] &= ~(1L << col)) <= 1) enqueue(cells() + rowBase + digit);
+            if (Long.bitCount(positions[colBase + digit] &= ~(1L << row)) <= 1) enqueue(cells() + colBase + digit);
+            if (Long.bitCount(positions[boxBase + digit] &= ~(1L << boxPos)) <= 1) enqueue(cells() + boxBase + digit);
+        }
+        unlink(cell);
+        if (board[row][col] == 0) {
+            link(cell, Long.bitCount(mask));
+            if ((mask & (mask - 1)) == 0) enqueue(cell);
+        }
+    }
+    
+    private void link(int cell, int count) {
+        int head = bucketHead[count];
+        bucketOf[cell] = count;
+        bucketPrev[cell] = -1;
+        bucketNext[cell] = head;
+        if (head >= 0) bucketPrev[head] = cell;
+        bucketHead[count] = cell;
+    }
+    
+    private void unlink(int cell) {
+        int count = bucketOf[cell];
+        if (count < 0) return;
+        int prev = bucketPrev[cell], next = bucketNext[cell];
+        if (prev >= 0) bucketNext[prev] = next;
+        else bucketHead[count] = next;
+        if (next >= 0) bucketPrev[next] = prev;
+        bucketOf[cell] = -1;
+    }
+    
+    /**
+     * Cells of a unit that can still take a digit: bit k for the unit's k-th cell (column, row,
+     * or row-major position in the box). Units are rows, then columns, then boxes
+     */
+    long positionsOf(int unit, int digit) {
+        if (sweepPending) queueEverything();    // Singles stay queued for the next propagate()
+        return positions[unit * size + digit - 1];
+    }
+    
+    private int cells() {
+        return size * size;
+    }
+    
+    private void enqueue(int item) {
+        if (queued[item]) return;
+        queued[item] = true;
+        worklist[worklistSize++] = item;
+    }
+    
+    private void clearWorklist() {
+        while (worklistSize > 0) queued[worklist[--worklistSize]] = false;
     }
     
     /**
-     * Apply naked singles - if a cell has only one possibility, fill it
+     * Rebuild the position masks and buckets from the candidates and queue every open cell and every
+     * unit/digit pair, for when the board changed outside the search and anything could be a single
      */
-    private int applyNakedSingles(Stack<int[]> prevStates) {
-        int changeCount = 0;
+    private void queueEverything() {
+        Arrays.fill(positions, 0);
+        Arrays.fill(bucketHead, -1);
+        Arrays.fill(bucketOf, -1);
+        for (int cell = 0; cell < size * size; cell++) {
+            int row = geometry.rowOf[cell], col = geometry.colOf[cell];
+            if (board[row][col] == 0) link(cell, Long.bitCount(candidates[cell]));
+            int boxBase = (2 * size + geometry.boxOf[cell]) * size - 1;
+            long boxBit = 1L << geometry.boxPosOf[cell];
+            for (long mask = candidates[cell]; mask != 0; mask &= mask - 1) {
+                int digit = Long.numberOfTrailingZeros(mask);
+                positions[row * size - 1 + digit] |= 1L << col;
+                positions[(size + col) * size - 1 + digit] |= 1L << row;
+                positions[boxBase + digit] |= boxBit;
+            }
+        }
         
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                if (board[row][col] == 0) {
-                    int possibilities = getPossibilities(row, col);
-                    
-                    if (possibilities == 0) return 0; // Invalid state
-                    
-                    if (Integer.bitCount(possibilities) == 1) {
-                        int value = Integer.numberOfTrailingZeros(possibilities);
-                        placeDigitInternal(row, col, value);
-                        
-                        // Add to observable state for UI animation
-                        int[] fourDCoords = convert2Dto4D(row, col);
-                        observableState.offerLast(new int[]{value, fourDCoords[0], fourDCoords[1], fourDCoords[2], fourDCoords[3]});
-                        
-                        prevStates.push(new int[]{row,col});
-                        changeCount++;
-                    }
-                }
+        clearWorklist();
+        for (int item = 4 * size * size - 1; item >= 0; item--) {
+            if (item >= cells() || bucketOf[item] >= 0) enqueue(item);   // Open cells are the bucketed ones
+        }
+        sweepPending = false;
+    }
+    
+    /**
+     * Grid dimension (3 for 9x9)
+     */
+    public int getN() {
+        return n;
+    }
+    
+    /**
+     * Side length of the grid (9 for 9x9)
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Get box index for given row,col
+     */
+    int getBoxIndex(int row, int col) {
+        return geometry.boxOf[row * size + col];
+    }
+    
+    /**
+     * The shared layout tables for this board's size
+     */
+    Geometry geometry() {
+        return geometry;
+    }
+    
+    /**
+     * Get possible values for a cell - kept up to date by place/remove, so this is a single lookup
+     */
+    long getPossibilities(int row, int col) {
+        return candidates[row * size + col];
+    }
+    
+    /**
+     * Number of cells that are still empty
+     */
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+    
+    /**
+     * Digit currently held by a cell (0 if empty)
+     */
+    public int valueAt(int row, int col) {
+        return board[row][col];
+    }
+    
+    /**
+     * Take one queued item and place the single it points at, if it still is one. A naked single
+     * is a cell with one candidate left; a hidden single is a digit with one place left in a unit
+     *
+     * @return false if the item shows a dead end - a cell with no candidates, or a unit with
+     *         nowhere left for a digit it still needs
+     */
+    private boolean applySingle(int item) {
+        if (item < cells()) {
+            int row = geometry.rowOf[item], col = geometry.colOf[item];
+            if (board[row][col] != 0) return true;
+            long possibilities = candidates[item];
+            if (possibilities == 0) return false;
+            if ((possibilities & (possibilities - 1)) == 0) {
+                placeOnTrail(row, col, Long.numberOfTrailingZeros(possibilities));
+                solveStats.nakedSingle();
             }
+            return true;
+        }
+        
+        int index = item - cells();
+        int unit = index / size, digit = index % size + 1;
+        long used = unit < size ? rowConstraints[unit]
+                 : unit < 2 * size ? colConstraints[unit - size]
+                 : boxConstraints[unit - 2 * size];
+        if ((used & (1L << digit)) != 0) return true;   // Already placed in this unit
+        
+        long places = positions[index];
+        if (places == 0) return false;
+        if ((places & (places - 1)) == 0) {
+            int cell = geometry.unitCells[unit * size + Long.numberOfTrailingZeros(places)];
+            placeOnTrail(geometry.rowOf[cell], geometry.colOf[cell], digit);
+            solveStats.hiddenSingle();
         }
+        return true;
+    }
+    
+    /**
+     * Place a digit found by the search, remembering it on the trail for undo
+     */
+    private void placeOnTrail(int row, int col, int value) {
+        placeDigitInternal(row, col, value);
+        pushTrail(row * size + col);
         
-        return changeCount;
+        // Add to observable state for UI animation
+        recordStep(row, col, value);
     }
     
     /**
-     * Apply hidden singles - if a value can only go in one place in a unit, place it
+     * Rule numbers out of an empty cell on the trail, for techniques that prove more than the
+     * unit masks show
+     *
+     * @return How many of them were still candidates
      */
-    private int applyHiddenSingles(Stack<int[]> prevStates) {
-        int changeCount = 0;
+    int eliminate(int row, int col, long mask) {
+        int cell = row * size + col;
+        long removed = candidates[cell] & mask;
+        if (removed == 0) return 0;
         
-        // Check rows
-        for (int row = 0; row < size; row++) {
-            for (int value = 1; value <= size; value++) {
-                if ((rowConstraints[row] & (1 << value)) == 0) { // Value not used in row
-                    int possibleCols = 0;
-                    int lastCol = -1;
-                    
-                    for (int col = 0; col < size; col++) {
-                        if ((getPossibilities(row, col) & (1 << value)) != 0) {
-                            possibleCols++;
-                            lastCol = col;
-                        }
-                    }
-                    
-                    if (possibleCols == 1) {
-                        placeDigitInternal(row, lastCol, value);
-                        int[] fourDCoords = convert2Dto4D(row, lastCol);
-                        observableState.offerLast(new int[]{value, fourDCoords[0], fourDCoords[1], fourDCoords[2], fourDCoords[3]});
-                        
-                        prevStates.push(new int[]{row,lastCol});
-                        changeCount++;
-                    }
-                }
+        pushTrail(eliminated[cell]);
+        pushTrail(-(cell + 1));
+        eliminated[cell] |= removed;
+        setCandidates(cell, candidates[cell] & ~removed);
+        return Long.bitCount(removed);
+    }
+    
+    private void pushTrail(long entry) {
+        if (trailSize == trail.length) trail = Arrays.copyOf(trail, trailSize * 2);
+        trail[trailSize++] = entry;
+    }
+    
+    /**
+     * Rewind the trail to an earlier size, taking back the placements and eliminations above it
+     * (latest first)
+     */
+    private void undoTrail(int mark) {
+        while (trailSize > mark) {
+            long entry = trail[--trailSize];
+            if (entry < 0) {
+                int cell = (int) -entry - 1;
+                eliminated[cell] = trail[--trailSize];
+                refreshCandidates(cell);
+            } else {
+                int row = geometry.rowOf[(int) entry], col = geometry.colOf[(int) entry];
+                removeDigitInternal(row, col);
+                recordStep(row, col, 0);
             }
         }
-        
-        // Check columns
-        for (int col = 0; col < size; col++) {
-            for (int value = 1; value <= size; value++) {
-                if ((colConstraints[col] & (1 << value)) == 0) {
-                    int possibleRows = 0;
-                    int lastRow = -1;
-                    
-                    for (int row = 0; row < size; row++) {
-                        if ((getPossibilities(row, col) & (1 << value)) != 0) {
-                            possibleRows++;
-                            lastRow = row;
-                        }
-                    }
-                    
-                    if (possibleRows == 1) {
-                        placeDigitInternal(lastRow, col, value);
-                        int[] fourDCoords = convert2Dto4D(lastRow, col);
-                        observableState.offerLast(new int[]{value, fourDCoords[0], fourDCoords[1], fourDCoords[2], fourDCoords[3]});
-                        
-                        prevStates.push(new int[]{lastRow,col});
-                        changeCount++;
-                    }
+        // Back at a state the search already propagated (or is about to redo); nothing pending applies
+        clearWorklist();
+    }
+    
+    /**
+     * Find the empty cell with fewest possibilities (MCV heuristic). Reads the lowest non-empty
+     * bucket, so it is only valid after propagate()
+     *
+     * @return Cell index (row * size + col), or -1 if no cell is empty
+     */
+    int findMostConstrainedVariable() {
+        for (int count = 0; count <= size; count++) {
+            if (bucketHead[count] >= 0) return bucketHead[count];
+        }
+        return -1;
+    }
+    
+    /**
+     * Work through the queued singles until none are left, then the enabled techniques. Only
+     * what changed since the last pass is looked at, rather than sweeping every unit for every
+     * digit. Placements and eliminations go on the trail
+     *
+     * @return false if the board turned out to be a dead end
+     */
+    boolean propagate() {
+        if (sweepPending) queueEverything();
+        while (true) {
+            while (worklistSize > 0) {
+                int item = worklist[--worklistSize];
+                queued[item] = false;
+                if (!applySingle(item)) {
+                    clearWorklist();
+                    return false;
                 }
             }
+            if (emptyCount == 0 || techniqueChain.length == 0 || applyTechniques() == 0) return true;
         }
-        
-        // Check boxes
-        for (int boxIdx = 0; boxIdx < size; boxIdx++) {
-            for (int value = 1; value <= size; value++) {
-                if ((boxConstraints[boxIdx] & (1 << value)) == 0) {
-                    int possibleCells = 0;
-                    int lastRow = -1, lastCol = -1;
-                    
-                    int startRow = (boxIdx / n) * n;
-                    int startCol = (boxIdx % n) * n;
-                    
-                    for (int row = startRow; row < startRow + n; row++) {
-                        for (int col = startCol; col < startCol + n; col++) {
-                            if ((getPossibilities(row, col) & (1 << value)) != 0) {
-                                possibleCells++;
-                                lastRow = row;
-                                lastCol = col;
-                            }
-                        }
-                    }
-                    
-                    if (possibleCells == 1) {
-                        placeDigitInternal(lastRow, lastCol, value);
-                        int[] fourDCoords = convert2Dto4D(lastRow, lastCol);
-                        observableState.offerLast(new int[]{value, fourDCoords[0], fourDCoords[1], fourDCoords[2], fourDCoords[3]});
-                        
-                        prevStates.push(new int[]{lastRow,lastCol});
-                        changeCount++;
-                    }
-                }
+    }
+    
+    /**
+     * Apply singles and the enabled techniques to the board as it stands, without guessing. What
+     * they place stays on the board, and a board they fill counts as solved. Technique and solve
+     * stats start afresh, so they show exactly what this pass needed
+     *
+     * @return false if the board turned out to be a dead end
+     */
+    boolean deduce() {
+        techniqueStats.reset();
+        startStats();
+        sweepPending = true;
+        try {
+            boolean consistent = propagate();
+            if (consistent && emptyCount == 0) {
+                isUnsolved = false;
+                Arrays.fill(eliminated, 0);
+                trailSize = 0;
             }
+            return consistent;
+        } finally {
+            finishStats(null);
         }
-        
-        return changeCount;
     }
     
     /**
-     * Find the empty cell with fewest possibilities (MCV heuristic)
+     * The next deduction a person could make on the board as it stands, without guessing: a naked
+     * or hidden single if there is one, otherwise the first {@link Technique} (cheapest first,
+     * enabled or not) whose eliminations leave one. Works off the incremental candidate state and
+     * takes its eliminations back before returning, so the board is untouched and the call is
+     * cheap enough to make after every edit
+     *
+     * @return null if the board is full, has a cell with no candidates left, or needs a guess
      */
-    private int[] findMostConstrainedVariable() {
-        int[] best = null;
-        int minPossibilities = size + 1;
+    public Hint hint() {
+        if (emptyCount == 0) return null;
+        if (sweepPending) queueEverything();
+        if (bucketHead[0] >= 0) return null;    // A dead end - nothing to deduce from
         
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                if (board[row][col] == 0) {
-                    int possibilities = getPossibilities(row, col);
-                    int count = Integer.bitCount(possibilities);
-                    
-                    if (count < minPossibilities) {
-                        minPossibilities = count;
-                        best = new int[]{row, col};
-                        
-                        if (count == 0) return best; // Impossible state, return immediately
+        Hint hint = findSingle(null, trailSize);
+        if (hint != null) return hint;
+        
+        int mark = trailSize;
+        try {
+            while (true) {
+                Technique fired = null;
+                for (Technique technique : Technique.values()) {
+                    if (technique.apply(this) > 0) {
+                        fired = technique;
+                        break;      // The cheaper ones get another go first, as in a solve
                     }
                 }
+                if (fired == null || bucketHead[0] >= 0) return null;
+                hint = findSingle(fired, mark);
+                if (hint != null) return hint;
+            }
+        } finally {
+            if (trailSize > mark) {
+                undoTrail(mark);
+                sweepPending = true;    // The worklist went with the undo
             }
         }
+    }
+    
+    /**
+     * First naked single, else first hidden single, from the buckets and position masks
+     *
+     * @param technique What cleared the way, if anything
+     * @param mark      Trail size before it started; cells it eliminated from are involved too
+     */
+    private Hint findSingle(Technique technique, int mark) {
+        int cell = bucketHead[1];
+        if (cell >= 0) {
+            int row = geometry.rowOf[cell], col = geometry.colOf[cell];
+            int value = Long.numberOfTrailingZeros(candidates[cell]);
+            int[] involved = new int[size + trailSize - mark];
+            int count = 0;
+            for (int digit = 1; digit <= size; digit++) {
+                int peer = digit == value ? -1 : peerHolding(cell, digit);
+                if (peer >= 0) involved[count++] = peer;
+            }
+            return new Hint(row, col, value, false, technique, withEliminations(involved, count, mark, cell));
+        }
         
-        return best;
+        for (int index = 0; index < 3 * size * size; index++) {
+            long places = positions[index];
+            if (places == 0 || (places & (places - 1)) != 0) continue;
+            int unit = index / size, digit = index % size + 1;
+            int target = geometry.unitCells[unit * size + Long.numberOfTrailingZeros(places)];
+            
+            // Every other open cell of the unit sees the digit somewhere, or had it eliminated
+            int[] involved = new int[size + trailSize - mark];
+            int count = 0;
+            for (int k = 0; k < size; k++) {
+                int other = geometry.unitCells[unit * size + k];
+                if (other == target || board[geometry.rowOf[other]][geometry.colOf[other]] != 0) continue;
+                int peer = peerHolding(other, digit);
+                if (peer >= 0 && !contains(involved, count, peer)) involved[count++] = peer;
+            }
+            return new Hint(geometry.rowOf[target], geometry.colOf[target], digit, true, technique, withEliminations(involved, count, mark, target));
+        }
+        return null;
+    }
+    
+    /**
+     * A filled peer of the cell that holds the digit, or -1
+     */
+    private int peerHolding(int cell, int digit) {
+        int[] peers = geometry.peers;
+        for (int p = cell * geometry.peerCount, last = p + geometry.peerCount; p < last; p++) {
+            if (board[geometry.rowOf[peers[p]]][geometry.colOf[peers[p]]] == digit) return peers[p];
+        }
+        return -1;
+    }
+    
+    /**
+     * Append the cells other than the target eliminated from since the trail mark, and trim
+     */
+    private int[] withEliminations(int[] involved, int count, int mark, int target) {
+        for (int i = mark; i < trailSize; i++) {
+            int cell = (int) -trail[i] - 1;
+            if (trail[i] < 0 && cell != target && !contains(involved, count, cell)) involved[count++] = cell;
+        }
+        return Arrays.copyOf(involved, count);
+    }
+    
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Run the technique chain until one of them removes something, so the cheap singles get
+     * another go before anything more expensive is tried
+     *
+     * @return Candidates removed
+     */
+    private int applyTechniques() {
+        for (Technique technique : techniqueChain) {
+            long start = System.nanoTime();
+            int removed = technique.apply(this);
+            techniqueStats.record(technique, removed, System.nanoTime() - start);
+            if (removed > 0) return removed;
+        }
+        return 0;
+    }
+    
+    /**
+     * Choose the techniques the backtracker tries before guessing; none by default. They run
+     * cheapest first, in {@link Technique} order. A 9x9 board with techniques enabled stays on the
+     * generic search, since the bitboard kernel only does singles
+     */
+    public void setTechniques(Set<Technique> enabled) {
+        EnumSet<Technique> chain = EnumSet.noneOf(Technique.class);
+        chain.addAll(enabled);
+        techniqueChain = chain.toArray(new Technique[0]);
+    }
+    
+    /**
+     * Switch a single technique on or off, leaving the others as they are
+     */
+    public void setTechniqueEnabled(Technique technique, boolean enabled) {
+        EnumSet<Technique> chain = EnumSet.noneOf(Technique.class);
+        chain.addAll(Arrays.asList(techniqueChain));
+        if (enabled) chain.add(technique);
+        else chain.remove(technique);
+        techniqueChain = chain.toArray(new Technique[0]);
+    }
+    
+    public Set<Technique> getTechniques() {
+        EnumSet<Technique> chain = EnumSet.noneOf(Technique.class);
+        chain.addAll(Arrays.asList(techniqueChain));
+        return chain;
+    }
+    
+    /**
+     * How often each technique ran and fired during the last solve, and what it cost
+     */
+    public TechniqueStats getTechniqueStats() {
+        return techniqueStats;
+    }
+    
+    /**
+     * Choose how the backtracker branches: which cell it guesses at and the order it tries the
+     * digits in. The seed drives the random choices, and every solve starts from it afresh, so a
+     * solve is repeatable. Anything but the defaults (MOST_CONSTRAINED, ASCENDING) keeps 9x9
+     * boards off the bitboard kernel; dancing links and SAT have their own orders and ignore this
+     */
+    public void setSearchOrder(Branching branching, ValueOrder valueOrder, long seed) {
+        this.branching = Objects.requireNonNull(branching);
+        this.valueOrder = Objects.requireNonNull(valueOrder);
+        this.searchSeed = seed;
+        seedSearch();
+    }
+    
+    /**
+     * Start the random choices of the search order over from the seed; none are needed by default
+     */
+    private void seedSearch() {
+        boolean random = branching != Branching.MOST_CONSTRAINED || valueOrder == ValueOrder.RANDOM;
+        searchRandom = random ? new SplittableRandom(searchSeed) : null;
+    }
+    
+    public Branching getBranching() {
+        return branching;
+    }
+    
+    public ValueOrder getValueOrder() {
+        return valueOrder;
     }
     
     /**
      * Main backtracking solver with constraint propagation
      */
-    private boolean solveWithBacktracking() {
+    boolean solveWithBacktracking() {
+        if (shouldStop()) return false;
+        solveStats.node(searchDepth);
 
+        // Everything this level places goes on the trail above this mark
+        int mark = trailSize;
+        
         // Apply constraint propagation first
-        Stack<int[]> prevStates = new Stack<>();
-        int key = 0;
-        do {
-            key = 0;
-            key += applyNakedSingles(prevStates);
-            key += applyHiddenSingles(prevStates);
-        } while (key!=0);
+        long propagationStart = System.nanoTime();
+        boolean consistent = propagate();
+        solveStats.propagation(System.nanoTime() - propagationStart);
+        if (!consistent) {
+            undoTrail(mark);
+            return false;
+        }
+        notePartial();
+        
+        if (emptyCount == 0) {
+            if (++solutionsFound >= solutionLimit) return true; // Solved!
+            undoTrail(mark);
+            return false; // Counting - keep looking for the next one
+        }
         
         // Find most constrained variable
-        int[] cell = findMostConstrainedVariable();
-        if (cell == null) return true; // Solved!
+        int cell = branching == Branching.MOST_CONSTRAINED ? findMostConstrainedVariable() : randomMostConstrained();
 
-        int bestRow = cell[0],      bestCol = cell[1];
-        if (getPossibilities(bestRow, bestCol) == 0) {
-            while (!prevStates.empty()) {
-                int row = prevStates.peek()[0],     col = prevStates.peek()[1];
-                prevStates.pop();
-                int[] fourDCoords = convert2Dto4D(row, col);
-                removeDigitInternal(row, col);
-                observableState.offerLast(new int[]{0, fourDCoords[0], fourDCoords[1], fourDCoords[2], fourDCoords[3]});
-            }
+        int bestRow = geometry.rowOf[cell], bestCol = geometry.colOf[cell];
+        // Undoing a guess puts the cell's candidates back as they are now, so this is read once
+        long untried = getPossibilities(bestRow, bestCol);
+        if (untried == 0) {
+            undoTrail(mark);
             return false; // No possibilities, backtrack
         }
         // Try each possible value
-        for (int value = 1; value <= size; value++) {
-            if ((getPossibilities(bestRow, bestCol) & (1 << value)) != 0) {
-                // Try this value
-                placeDigitInternal(bestRow, bestCol, value);
-                
-                // Add to observable state for UI
-                int[] fourDCoords = convert2Dto4D(bestRow, bestCol);
-                observableState.offerLast(new int[]{value, fourDCoords[0], fourDCoords[1], fourDCoords[2], fourDCoords[3]});
-                
-                if (solveWithBacktracking()) {
-                    return true; // Solution found
-                }
-                
-                // Backtrack
-                removeDigitInternal(bestRow, bestCol);
-
-                // Add backtrack to observable state
-                observableState.offerLast(new int[]{0, fourDCoords[0], fourDCoords[1], fourDCoords[2], fourDCoords[3]});
+        while (untried != 0) {
+            int value = nextValue(untried);
+            untried &= ~(1L << value);
+            
+            // Try this value
+            placeOnTrail(bestRow, bestCol, value);
+            solveStats.guess();
+            
+            searchDepth++;
+            boolean solved = solveWithBacktracking();
+            searchDepth--;
+            if (solved) {
+                return true; // Solution found
             }
+            
+            // Backtrack - just this guess, the level's propagation is undone below
+            undoTrail(trailSize - 1);
+            solveStats.backtrack();
+            
+            if (aborted) break; // Unwind without trying the remaining values
         }
         
-        while (!prevStates.empty()) {
-            int row = prevStates.peek()[0],     col = prevStates.peek()[1];
-            prevStates.pop();
-            int[] fourDCoords = convert2Dto4D(row, col);
-            removeDigitInternal(row, col);
-            observableState.offerLast(new int[]{0, fourDCoords[0], fourDCoords[1], fourDCoords[2], fourDCoords[3]});
-        }
+        undoTrail(mark);
         return false; // No solution found
     }
     
+    /**
+     * One of the most constrained cells, picked at random among the first few of the lowest bucket
+     * (walking the whole bucket would cost more than the guess it decides). Valid after propagate()
+     */
+    private int randomMostConstrained() {
+        int count = 0;
+        while (bucketHead[count] < 0) count++;
+        int chosen = bucketHead[count], seen = 1;
+        for (int cell = bucketNext[chosen]; cell >= 0 && seen < RANDOM_TIE_SCAN; cell = bucketNext[cell]) {
+            if (searchRandom.nextInt(++seen) == 0) chosen = cell;
+        }
+        return chosen;
+    }
+    
+    /**
+     * The next digit of a cell's untried candidates (non-empty) to guess, in the search's value order
+     */
+    private int nextValue(long untried) {
+        switch (valueOrder) {
+            case DESCENDING:
+                return 63 - Long.numberOfLeadingZeros(untried);
+            case RANDOM:
+                for (int skip = searchRandom.nextInt(Long.bitCount(untried)); skip > 0; skip--) {
+                    untried &= untried - 1;
+                }
+                return Long.numberOfTrailingZeros(untried);
+            default:
+                return Long.numberOfTrailingZeros(untried);
+        }
+    }
+    
+    /**
+     * Search engines that can fill the board
+     */
+    public enum Engine {
+        BACKTRACKING,   // Recursive backtracker with singles propagation
+        DANCING_LINKS,  // Algorithm X over the exact-cover matrix
+        SAT             // Clause-learning SAT search; pulls ahead on sparse 25x25 and larger
+    }
+    
+    /**
+     * Which cell the backtracker guesses at
+     */
+    public enum Branching {
+        MOST_CONSTRAINED,           // The first cell with the fewest candidates
+        RANDOM_MOST_CONSTRAINED     // Any of the cells with the fewest candidates, from the search seed
+    }
+    
+    /**
+     * The order the backtracker tries a cell's candidates in
+     */
+    public enum ValueOrder {
+        ASCENDING,
+        DESCENDING,
+        RANDOM      // A fresh random order at every guess, from the search seed
+    }
+    
+    /**
+     * How a solve ended
+     */
+    public enum Status {
+        SOLVED,             // The board holds a solution
+        UNSOLVABLE,         // The search finished without finding one
+        BUDGET_EXHAUSTED    // Stopped by the deadline, the node limit or cancel() first
+    }
+    
     /**
      * Main solve method - maintains UI compatibility
      */
-    public void solve() {
+    public SolveStats solve() {
+        return solve(Engine.BACKTRACKING);
+    }
+    
+    /**
+     * Solve with the chosen engine. Either way the steps end up in observableState
+     *
+     * @return What the search did - the same object {@link #getSolveStats()} returns
+     */
+    public SolveStats solve(Engine engine) {
+        observableState.clear();
+        techniqueStats.reset();
+        startStats();
+        sweepPending = true;
+        solutionsFound = 0;
+        aborted = false;
+        clockCountdown = 0;     // Check the deadline on the very first node
+        
+        try {
+            Canonicalizer.Form form = solutionCache == null ? null : Canonicalizer.canonicalize(n, grid());
+            int[] cached = form == null ? null : solutionCache.get(form);
+            boolean solved;
+            if (cached != null) {
+                solved = cached.length > 0 && fill(form.fromCanonical(cached));
+            } else {
+                solved = switch (engine) {
+                    case DANCING_LINKS -> new DancingLinks(this).solve();
+                    case SAT -> solveWithSat();
+                    default -> useKernel() ? solveWithKernel() : solveWithBacktracking();
+                };
+                if (form != null && !aborted) solutionCache.put(form, solved ? form.toCanonical(grid()) : null);
+            }
+            if (solved) {
+                isUnsolved = false;
+                // Every cell is filled, so the eliminations have done their job; keep them from
+                // hiding candidates if a digit is taken out again later
+                Arrays.fill(eliminated, 0);
+                trailSize = 0;
+                if (trackingPartial) notePartial();     // A cache hit never searched
+            }
+            status = solved ? Status.SOLVED : aborted ? Status.BUDGET_EXHAUSTED : Status.UNSOLVABLE;
+            isUnsolved = !solved;
+        } finally {
+            cancelRequested = false;
+            finishStats(observableState);
+        }
+        return solveStats;
+    }
+    
+    /**
+     * Anytime solve: search with the backtracker for at most timeMillis and nodeLimit search
+     * nodes, whichever runs out first (0 for no limit on either; a deadline already set still
+     * applies). Whatever the outcome, {@link #getBestPartial()} then holds the fullest grid the
+     * search reached - the solution, or the deepest assignment propagation hadn't yet shown to be
+     * a dead end. As with any stopped solve, the board itself goes back to its givens unless solved.
+     * 9x9 boards stay off the bitboard kernel for this, since it keeps no grid to take a partial from
+     */
+    public Status solveWithin(long timeMillis, long nodeLimit) {
+        return solveWithin(Engine.BACKTRACKING, timeMillis, nodeLimit);
+    }
+    
+    /**
+     * {@link #solveWithin(long, long)} with the chosen engine
+     */
+    public Status solveWithin(Engine engine, long timeMillis, long nodeLimit) {
+        if (timeMillis < 0 || nodeLimit < 0) {
+            throw new IllegalArgumentException("Budgets must not be negative");
+        }
+        long savedDeadline = deadline, savedNodeLimit = this.nodeLimit;
+        if (timeMillis > 0) {
+            long budgetDeadline = System.nanoTime() + timeMillis * 1_000_000;
+            if (deadline == 0 || budgetDeadline - deadline < 0) deadline = budgetDeadline;
+        }
+        this.nodeLimit = nodeLimit;
+        bestPartial = grid();
+        bestPartialEmpty = emptyCount;
+        trackingPartial = true;
+        try {
+            solve(engine);
+            return status;
+        } finally {
+            trackingPartial = false;
+            deadline = savedDeadline;
+            this.nodeLimit = savedNodeLimit;
+        }
+    }
+    
+    /**
+     * How the last solve ended, or null before the first one
+     */
+    public Status getStatus() {
+        return status;
+    }
+    
+    /**
+     * The fullest grid the last {@link #solveWithin} search reached, row-major with 0 for empty,
+     * or null if there hasn't been one. A copy, so it stays put while the board is reused
+     */
+    public int[] getBestPartial() {
+        return bestPartial == null ? null : bestPartial.clone();
+    }
+    
+    /**
+     * Remember the grid if it is the fullest of this solve so far. Called by the engines at each
+     * consistent search node; does nothing outside solveWithin()
+     */
+    void notePartial() {
+        if (!trackingPartial || emptyCount >= bestPartialEmpty) return;
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(board[row], 0, bestPartial, row * size, size);
+        }
+        bestPartialEmpty = emptyCount;
+    }
+    
+    /**
+     * Whether notePartial() has anything to do, for engines that must first put their
+     * assignment on the grid
+     */
+    boolean isTrackingPartial() {
+        return trackingPartial;
+    }
+    
+    /**
+     * Answer solves from a cache of solutions to equivalent puzzles where possible, and add to it
+     * what gets searched. A hit records one step per filled cell and counts no search nodes. Pass
+     * null to always search
+     */
+    public void setSolutionCache(SolutionCache cache) {
+        this.solutionCache = cache;
+    }
+    
+    public SolutionCache getSolutionCache() {
+        return solutionCache;
+    }
+    
+    /**
+     * The grid, row-major
+     */
+    private int[] grid() {
+        int[] cells = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(board[row], 0, cells, row * size, size);
+        }
+        return cells;
+    }
+    
+    /**
+     * Fill the empty cells from a full grid that agrees with the givens, recording each as a step
+     */
+    private boolean fill(int[] solution) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (board[row][col] != 0) continue;
+                if (!placeDigitInternal(row, col, solution[row * size + col])) return false;
+                recordStep(row, col, board[row][col]);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Nodes, backtracks, depth, singles and timings of the current or last solve
+     */
+    public SolveStats getSolveStats() {
+        return solveStats;
+    }
+    
+    /**
+     * Have a listener called with the live {@link SolveStats} every intervalMillis or so while a
+     * search runs, and once when it ends. Pass null to stop. The clock is only read every few
+     * hundred nodes, so very short intervals are not honoured exactly
+     */
+    public void setProgressListener(SolveStats.ProgressListener listener, long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("Interval must not be negative");
+        }
+        this.progressListener = listener;
+        this.progressIntervalNanos = intervalMillis * 1_000_000L;
+    }
+    
+    private void startStats() {
+        solveStats.start();
+        searchDepth = 0;
+        seedSearch();
+        nextProgress = System.nanoTime() + progressIntervalNanos;
+    }
+    
+    private void finishStats(StepLog log) {
+        solveStats.finish(log);
+        if (progressListener != null) progressListener.onProgress(solveStats);
+    }
+    
+    /**
+     * 9x9 boards go to the bitboard kernel - same answers, no per-step bookkeeping - unless their
+     * search is being traced. Boards being animated keep the generic search so every step shows
+     */
+    private boolean useKernel() {
+        return n == 3 && !(recording && traceSearch) && techniqueChain.length == 0 && !trackingPartial
+            && branching == Branching.MOST_CONSTRAINED && valueOrder == ValueOrder.ASCENDING;
+    }
+    
+    private Sudoku9 kernel() {
+        if (kernel == null) kernel = new Sudoku9(this);
+        return kernel;
+    }
+    
+    /**
+     * Solve with the 9x9 kernel and copy its solution onto the board
+     */
+    private boolean solveWithKernel() {
+        solutionsFound = kernel().search(1);
+        if (solutionsFound == 0) return false;
+        
+        // A full grid: every unit holds every digit and no cell has candidates left. The
+        // kernel keeps no trail, so the steps are just the cells it filled
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (board[row][col] != 0) continue;
+                board[row][col] = kernel.solutionAt(row * size + col);
+                recordStep(row, col, board[row][col]);
+            }
+        }
+        Arrays.fill(rowConstraints, allCandidates);
+        Arrays.fill(colConstraints, allCandidates);
+        Arrays.fill(boxConstraints, allCandidates);
+        Arrays.fill(candidates, 0);
+        emptyCount = 0;
+        return true;
+    }
+    
+    /**
+     * Propagate singles (and any enabled techniques) first, so the SAT engine only encodes what
+     * they leave open - on most puzzles a small fraction of the candidates
+     */
+    private boolean solveWithSat() {
+        int mark = trailSize;
+        if (propagate() && (emptyCount == 0 || new SatSolver(this).solve())) return true;
+        undoTrail(mark);
+        return false;
+    }
+    
+    /**
+     * Count the solutions of the current puzzle, stopping as soon as {@code limit} are found.
+     * Uses the same search as solve() (the bitboard kernel for 9x9), but records no steps, and
+     * the board is left exactly as it was. Cancel and the deadline apply; check wasAborted() for a partial count.
+     * The node limit does not: it is a budget for solving, and a count cut short by it would pass
+     * for a definite answer in hasUniqueSolution()
+     *
+     * @return Number of solutions found, at most limit
+     */
+    public int countSolutions(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        boolean wasRecording = recording;
+        long savedNodeLimit = nodeLimit;
+        int mark = trailSize;
+        recording = false;
+        nodeLimit = 0;
+        sweepPending = true;
+        solutionLimit = limit;
+        solutionsFound = 0;
+        aborted = false;
+        clockCountdown = 0;
+        startStats();
+        
+        try {
+            if (n == 3) {
+                return solutionsFound = kernel().search(limit);   // Never touches the board
+            }
+            if (solveWithBacktracking()) {
+                undoTrail(mark);    // Stopped on the limit-th solution - take it back off the board
+            }
+            return solutionsFound;
+        } finally {
+            solutionLimit = 1;
+            recording = wasRecording;
+            nodeLimit = savedNodeLimit;
+            cancelRequested = false;
+            finishStats(null);     // Counting records no steps
+        }
+    }
+    
+    /**
+     * Uniqueness check - exactly one solution
+     */
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+    
+    /**
+     * Solve with the backtracker split across a fork/join pool. The search branches at the most
+     * constrained cell; every branch works on its own copy of the board, idle workers steal
+     * branches, and the first solution stops the rest. The winning grid is copied back here and
+     * recorded as one step per filled cell (the branches themselves record nothing). The solve
+     * stats add up the search work of every branch
+     *
+     * @param parallelism Worker threads to use
+     */
+    public void solveParallel(int parallelism) {
+        observableState.clear();
+        startStats();
+        aborted = false;
+        stopFlag = new AtomicBoolean(cancelRequested);
+        
+        try {
+            Board solution = new ParallelSolver(parallelism).solve(this, stopFlag);
+            if (solution != null) {
+                adopt(solution);
+            } else {
+                aborted = stopFlag.get();   // Only a cancel or a spent budget raises it without a winner
+            }
+            status = solution != null ? Status.SOLVED : aborted ? Status.BUDGET_EXHAUSTED : Status.UNSOLVABLE;
+            isUnsolved = solution == null;
+        } finally {
+            stopFlag = null;
+            cancelRequested = false;
+            finishStats(observableState);
+        }
+    }
+    
+    /**
+     * Race several differently configured searches on copies of this board (see
+     * {@link PortfolioSolver}). The first to settle the puzzle - solved, or shown to have no
+     * solution - wins and the rest are stopped. As with solveParallel(), a solution is copied back
+     * here as one step per filled cell, and the solve stats count the winner's search. Cancel, the
+     * deadline and the node limit (counted by each racer on its own) apply
+     *
+     * @return The winning strategy, or null if every racer was stopped first
+     */
+    public PortfolioSolver.Strategy solvePortfolio(PortfolioSolver portfolio) {
         observableState.clear();
+        startStats();
+        aborted = false;
+        stopFlag = new AtomicBoolean(cancelRequested);
         
-        if (solveWithBacktracking()) {
-            isUnsolved = false;
+        try {
+            PortfolioSolver.Result result = portfolio.race(this, stopFlag);
+            if (result == null) {
+                aborted = true;
+                status = Status.BUDGET_EXHAUSTED;
+                isUnsolved = true;
+                return null;
+            }
+            if (result.board.isSolved()) adopt(result.board);
+            solveStats.add(result.board.getSolveStats());     // The losers' work is not counted
+            status = result.board.getStatus();
+            isUnsolved = status != Status.SOLVED;
+            return result.strategy;
+        } finally {
+            stopFlag = null;
+            cancelRequested = false;
+            finishStats(observableState);
+        }
+    }
+    
+    /**
+     * Fill in the empty cells from a solved copy, recording a step for each
+     */
+    private void adopt(Board solution) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (board[row][col] == 0) {
+                    placeDigitInternal(row, col, solution.board[row][col]);
+                    recordStep(row, col, board[row][col]);
+                }
+            }
+        }
+        isUnsolved = false;
+    }
+    
+    /**
+     * Copy for one racer of a portfolio solve: like a branch copy, except that running out of its
+     * own budget stops only this racer
+     */
+    Board raceCopy(AtomicBoolean sharedStop) {
+        Board copy = branchCopy(sharedStop);
+        copy.budgetStopsAll = false;
+        return copy;
+    }
+    
+    /**
+     * Copy for one branch of a parallel solve: shares the stop flag and records nothing
+     */
+    Board branchCopy(AtomicBoolean sharedStop) {
+        Board copy = new Board(this);
+        copy.stopFlag = sharedStop;
+        copy.recording = false;
+        copy.clockCountdown = 0;
+        return copy;
+    }
+    
+    /**
+     * Ask a running solve (on another thread) to stop. The search unwinds through its undo
+     * trail, so the board is left holding just what it held before solve() was called.
+     * A cancel issued before solve() starts stops that solve immediately
+     */
+    public void cancel() {
+        cancelRequested = true;
+        AtomicBoolean sharedStop = stopFlag;
+        if (sharedStop != null) sharedStop.set(true);   // Reaches the branches of a parallel solve
+    }
+    
+    /**
+     * Take back a cancel() that no solve has consumed yet, so it can't stop the next one
+     */
+    void withdrawCancel() {
+        cancelRequested = false;
+    }
+    
+    /**
+     * Give up solving once System.nanoTime() passes this value; 0 removes the deadline.
+     * Like cancel(), an expired deadline leaves the board as it was before solving
+     */
+    public void setDeadline(long deadlineNanos) {
+        this.deadline = deadlineNanos;
+    }
+    
+    /**
+     * Give up solving after this many search nodes (see {@link SolveStats#getNodes()}); 0 removes
+     * the limit. Applies to every solve the way the deadline does, counting from its start; in a
+     * parallel solve each branch counts its own. countSolutions() ignores it
+     */
+    public void setNodeLimit(long nodes) {
+        if (nodes < 0) {
+            throw new IllegalArgumentException("Node limit must not be negative");
+        }
+        this.nodeLimit = nodes;
+    }
+    
+    /**
+     * True if the last solve stopped early because of cancel(), the deadline or the node limit
+     */
+    public boolean wasAborted() {
+        return aborted;
+    }
+    
+    /**
+     * Polled by the search engines at every node; latches aborted once it fires. Progress
+     * reports ride on the same clock check
+     */
+    boolean shouldStop() {
+        if (aborted) return true;
+        if (cancelRequested || (stopFlag != null && stopFlag.get())) return aborted = true;
+        if (nodeLimit != 0 && solveStats.getNodes() >= nodeLimit) {
+            if (stopFlag != null && budgetStopsAll) stopFlag.set(true);
+            return aborted = true;
+        }
+        if ((deadline != 0 || progressListener != null) && --clockCountdown <= 0) {
+            clockCountdown = CLOCK_CHECK_INTERVAL;
+            long now = System.nanoTime();
+            if (deadline != 0 && now - deadline >= 0) {
+                if (stopFlag != null && budgetStopsAll) stopFlag.set(true);
+                return aborted = true;
+            }
+            if (progressListener != null && now - nextProgress >= 0) {
+                nextProgress = now + progressIntervalNanos;
+                progressListener.onProgress(solveStats);
+            }
         }
+        return false;
     }
     
     /**
-     * Check if puzzle is solved
+     * Check if puzzle is solved: the last solve (or deduce) filled the board, and no digit has
+     * been taken out since
      */
     public boolean isSolved() {
         return !isUnsolved;
@@ -0,0 +1,403 @@
+package com.dooku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps a grid to a canonical representative of everything equivalent to it: the same puzzle with
+ * its digits relabelled, rows swapped within a band, bands swapped, columns swapped within a
+ * stack, stacks swapped, or the whole grid transposed. Equivalent grids get the same canonical
+ * form, and the {@link Form} also carries the transform, so an answer worked out for the
+ * canonical grid can be carried back to the original.
+ *
+ * The canonical form is the lexicographic minimum of the class, compared first on where the
+ * blanks are and then on the digits, relabelled in order of first appearance (both read row by
+ * row). Putting the blank pattern first is what keeps this cheap: it is minimised one row at a
+ * time, each row as small as the rows left allow, and the columns a row can't tell apart stay in
+ * one unordered group instead of being tried in every order. Digits only come in to break the
+ * ties the pattern leaves, which for a puzzle are usually just its symmetries.
+ *
+ * All tied choices are carried forward together, so the result is exact up to {@link #MAX_TIES}
+ * of them. Very regular grids - a full one has no blanks to go by - can overflow that, and then
+ * equivalent grids may come out with different forms; the transform is still right, so a cache
+ * only loses hits.
+ */
+public class Canonicalizer {
+
+    static final int MAX_TIES = 4096;
+
+    /**
+     * A grid in canonical form, with the transform that produced it
+     */
+    public static class Form {
+        private final int n;
+        private final int size;
+        private final boolean transposed;
+        private final int[] rows;       // Canonical row i is original row rows[i] (after transposing)
+        private final int[] cols;
+        private final int[] digits;     // Original digit -> canonical digit, 0 stays 0
+        private final int[] inverse;
+        private final int[] cells;
+        private final String key;
+
+        Form(int n, boolean transposed, int[] rows, int[] cols, int[] digits, int[] grid) {
+            this.n = n;
+            this.size = n * n;
+            this.transposed = transposed;
+            this.rows = rows;
+            this.cols = cols;
+            this.digits = digits;
+            this.inverse = new int[size + 1];
+            for (int digit = 1; digit <= size; digit++) inverse[digits[digit]] = digit;
+            this.cells = toCanonical(grid);
+
+            char[] chars = new char[cells.length];
+            for (int i = 0; i < cells.length; i++) chars[i] = (char) cells[i];
+            this.key = new String(chars);
+        }
+
+        public int getN() {
+            return n;
+        }
+
+        /**
+         * The canonical grid, row-major
+         */
+        public int[] getCells() {
+            return cells.clone();
+        }
+
+        /**
+         * The canonical grid as a string, for hashing; equal for equivalent grids
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public boolean isTransposed() {
+            return transposed;
+        }
+
+        /**
+         * Apply this form's transform to another grid of the same size - e.g. a solution of the
+         * original puzzle becomes a solution of the canonical one
+         */
+        public int[] toCanonical(int[] grid) {
+            int[] result = new int[size * size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    result[i * size + j] = digits[grid[originalCell(i, j)]];
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Undo this form's transform - e.g. a solution of the canonical puzzle becomes a solution
+         * of the original one
+         */
+        public int[] fromCanonical(int[] grid) {
+            int[] result = new int[size * size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    result[originalCell(i, j)] = inverse[grid[i * size + j]];
+                }
+            }
+            return result;
+        }
+
+        private int originalCell(int i, int j) {
+            return transposed ? cols[j] * size + rows[i] : rows[i] * size + cols[j];
+        }
+    }
+
+    /**
+     * One way of laying out the first few canonical rows. Stacks are placed for good, but the
+     * columns inside a stack form groups that no row so far has told apart - three columns blank
+     * in every row so far stay one group rather than six separate orders
+     */
+    private static class Partial {
+        final boolean transposed;
+        final int[] cols;
+        final boolean[] split;      // A group starts at this position; split[size] closes the last
+        final int[] rows;
+
+        Partial(boolean transposed, int size) {
+            this.transposed = transposed;
+            this.cols = new int[size];
+            this.split = new boolean[size + 1];
+            this.rows = new int[size];
+        }
+
+        Partial(Partial parent) {
+            this.transposed = parent.transposed;
+            this.cols = parent.cols.clone();
+            this.split = parent.split.clone();
+            this.rows = parent.rows.clone();
+        }
+    }
+
+    private Canonicalizer() {
+    }
+
+    /**
+     * @param grid Row-major cells, 0 for blanks
+     */
+    public static Form canonicalize(int n, int[] grid) {
+        int size = n * n;
+        if (grid.length != size * size) {
+            throw new IllegalArgumentException("Grid must have " + size * size + " cells");
+        }
+
+        List<Partial> ties = seeds(n, grid);
+        int[] best = new int[size];
+        int[] row = new int[size];
+        for (int depth = 0; depth < size; depth++) {
+            List<Partial> next = new ArrayList<>();
+            boolean first = true;
+            for (Partial partial : ties) {
+                long used = 0;
+                int bandsUsed = 0;
+                for (int k = 0; k < depth; k++) {
+                    used |= 1L << partial.rows[k];
+                    bandsUsed |= 1 << (partial.rows[k] / n);
+                }
+                // Finish the current band before starting another
+                int band = depth % n == 0 ? -1 : partial.rows[depth - depth % n] / n;
+
+                for (int candidate = 0; candidate < size; candidate++) {
+                    if (depth == 0 ? candidate != partial.rows[0]
+                        : (used & (1L << candidate)) != 0
+                        || (band >= 0 ? candidate / n != band : (bandsUsed & (1 << (candidate / n))) != 0)) continue;
+
+                    int order = layOut(partial, grid, size, candidate, row, first ? null : best);
+                    if (order > 0) continue;
+                    if (order < 0 || first) {
+                        System.arraycopy(row, 0, best, 0, size);
+                        next.clear();
+                        first = false;
+                    }
+                    if (next.size() < MAX_TIES) next.add(refine(partial, grid, size, depth, candidate));
+                }
+            }
+            ties = next;
+        }
+        return breakTies(n, grid, ties);
+    }
+
+    /**
+     * The transposes, first rows and stack orders whose first row puts the most blanks first:
+     * stacks with more blanks go ahead
+     */
+    private static List<Partial> seeds(int n, int[] grid) {
+        int size = n * n;
+        int[][] blanks = new int[2 * size][n];
+        int[][] sorted = new int[2 * size][];
+        int[] best = null;
+        for (int option = 0; option < 2 * size; option++) {
+            for (int col = 0; col < size; col++) {
+                if (value(grid, size, option >= size, option % size, col) == 0) blanks[option][col / n]++;
+            }
+            sorted[option] = blanks[option].clone();
+            Arrays.sort(sorted[option]);
+            if (best == null || compareDescending(sorted[option], best) < 0) best = sorted[option];
+        }
+
+        List<Partial> seeds = new ArrayList<>();
+        for (int option = 0; option < 2 * size; option++) {
+            if (compareDescending(sorted[option], best) != 0) continue;
+            orderStacks(n, option >= size, option % size, blanks[option], new int[n], 0, 0, seeds);
+        }
+        return seeds;
+    }
+
+    private static void orderStacks(int n, boolean transposed, int row, int[] blanks, int[] order,
+                                    int placed, int stacksUsed, List<Partial> seeds) {
+        if (seeds.size() >= MAX_TIES) return;
+        int size = n * n;
+        if (placed == n) {
+            Partial seed = new Partial(transposed, size);
+            for (int slot = 0; slot < n; slot++) {
+                for (int k = 0; k < n; k++) seed.cols[slot * n + k] = order[slot] * n + k;
+                seed.split[slot * n] = true;
+            }
+            seed.split[size] = true;
+            seed.rows[0] = row;
+            seeds.add(seed);
+            return;
+        }
+        int most = -1;
+        for (int stack = 0; stack < n; stack++) {
+            if ((stacksUsed & (1 << stack)) == 0) most = Math.max(most, blanks[stack]);
+        }
+        for (int stack = 0; stack < n; stack++) {
+            if ((stacksUsed & (1 << stack)) != 0 || blanks[stack] != most) continue;
+            order[placed] = stack;
+            orderStacks(n, transposed, row, blanks, order, placed + 1, stacksUsed | (1 << stack), seeds);
+        }
+    }
+
+    /**
+     * Write out a candidate row's blank pattern (0 blank, 1 given) as the next canonical row would
+     * read it - blanks first in every group - comparing it with the best so far on the way, unless
+     * best is null
+     *
+     * @return Negative if smaller, 0 if equal, positive if larger - in which case the row is
+     *         abandoned half way
+     */
+    private static int layOut(Partial partial, int[] grid, int size, int candidate, int[] row, int[] best) {
+        int order = 0;
+        int j = 0;
+        for (int start = 0, end; start < size; start = end) {
+            end = start + 1;
+            while (!partial.split[end]) end++;
+
+            int blanks = 0;
+            for (int k = start; k < end; k++) {
+                if (value(grid, size, partial.transposed, candidate, partial.cols[k]) == 0) blanks++;
+            }
+            for (int k = start; k < end; k++, j++) {
+                row[j] = k - start < blanks ? 0 : 1;
+                if (order == 0 && best != null && row[j] != best[j]) {
+                    if (row[j] > best[j]) return 1;
+                    order = -1;
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Grow a partial by the candidate row, splitting every group into its blank and given columns
+     */
+    private static Partial refine(Partial parent, int[] grid, int size, int depth, int candidate) {
+        Partial child = new Partial(parent);
+        child.rows[depth] = candidate;
+        for (int start = 0, end; start < size; start = end) {
+            end = start + 1;
+            while (!child.split[end]) end++;
+
+            int p = start;
+            for (int k = start; k < end; k++) {
+                if (value(grid, size, child.transposed, candidate, parent.cols[k]) == 0) child.cols[p++] = parent.cols[k];
+            }
+            child.split[p] = true;
+            for (int k = start; k < end; k++) {
+                if (value(grid, size, child.transposed, candidate, parent.cols[k]) != 0) child.cols[p++] = parent.cols[k];
+            }
+        }
+        return child;
+    }
+
+    /**
+     * Among layouts with the smallest blank pattern, order the columns each one still leaves
+     * grouped and keep the smallest relabelled grid
+     */
+    private static Form breakTies(int n, int[] grid, List<Partial> ties) {
+        int size = n * n;
+        int[] best = null;
+        int[] candidate = new int[size * size];
+        int[] digits = new int[size + 1];
+        Partial winner = null;
+        int tried = 0;
+        for (Partial partial : ties) {
+            List<Partial> orders = new ArrayList<>();
+            orderGroups(partial, grid, size, 0, orders);
+            for (Partial order : orders) {
+                if (tried++ >= MAX_TIES) break;
+                Arrays.fill(digits, 0);
+                int next = 1;
+                boolean smaller = best == null;
+                boolean larger = false;
+                for (int i = 0; i < size * size && !larger; i++) {
+                    int digit = value(grid, size, order.transposed, order.rows[i / size], order.cols[i % size]);
+                    if (digit != 0 && digits[digit] == 0) digits[digit] = next++;
+                    candidate[i] = digits[digit];
+                    if (!smaller) {
+                        if (candidate[i] < best[i]) smaller = true;
+                        else if (candidate[i] > best[i]) larger = true;
+                    }
+                }
+                if (smaller) {
+                    best = candidate.clone();
+                    winner = order;
+                }
+            }
+        }
+
+        Arrays.fill(digits, 0);
+        int next = 1;
+        for (int i = 0; i < size * size; i++) {
+            int digit = value(grid, size, winner.transposed, winner.rows[i / size], winner.cols[i % size]);
+            if (digit != 0 && digits[digit] == 0) digits[digit] = next++;
+        }
+        for (int digit = 1; digit <= size; digit++) {
+            if (digits[digit] == 0) digits[digit] = next++;     // Digits the grid never uses
+        }
+        return new Form(n, winner.transposed, winner.rows, winner.cols, digits, grid);
+    }
+
+    /**
+     * Every order of the columns still grouped, skipping groups that are blank all the way down
+     * since their order can't matter
+     */
+    private static void orderGroups(Partial partial, int[] grid, int size, int from, List<Partial> out) {
+        if (out.size() >= MAX_TIES) return;
+        int start = from, end = size;
+        for (; start < size; start = end) {
+            end = start + 1;
+            while (!partial.split[end]) end++;
+            if (end - start > 1 && !blankColumn(partial, grid, size, partial.cols[start])) break;
+        }
+        if (start >= size) {
+            out.add(partial);
+            return;
+        }
+        for (int[] order : permutations(Arrays.copyOfRange(partial.cols, start, end))) {
+            Partial copy = new Partial(partial);
+            System.arraycopy(order, 0, copy.cols, start, order.length);
+            for (int k = start; k < end; k++) copy.split[k] = true;
+            orderGroups(copy, grid, size, end, out);
+        }
+    }
+
+    private static boolean blankColumn(Partial partial, int[] grid, int size, int col) {
+        for (int row = 0; row < size; row++) {
+            if (value(grid, size, partial.transposed, row, col) != 0) return false;
+        }
+        return true;
+    }
+
+    private static List<int[]> permutations(int[] values) {
+        List<int[]> result = new ArrayList<>();
+        permute(values, 0, result);
+        return result;
+    }
+
+    private static void permute(int[] values, int from, List<int[]> result) {
+        if (from >= values.length - 1) {
+            result.add(values.clone());
+            return;
+        }
+        for (int i = from; i < values.length; i++) {
+            int tmp = values[from]; values[from] = values[i]; values[i] = tmp;
+            permute(values, from + 1, result);
+            tmp = values[from]; values[from] = values[i]; values[i] = tmp;
+        }
+    }
+
+    private static int value(int[] grid, int size, boolean transposed, int row, int col) {
+        return transposed ? grid[col * size + row] : grid[row * size + col];
+    }
+
+    /**
+     * Compare two ascending blank counts as if sorted descending, where more blanks sorts first
+     */
+    private static int compareDescending(int[] a, int[] b) {
+        for (int i = a.length - 1; i >= 0; i--) {
+            if (a[i] != b[i]) return a[i] > b[i] ? -1 : 1;
+        }
+        return 0;
+    }
+}
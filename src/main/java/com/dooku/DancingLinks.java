@@ -0,0 +1,220 @@
+package com.dooku;
+
+/**
+ * Knuth's Algorithm X with dancing links, run over the current state of a {@link Board}.
+ *
+ * Each candidate (cell, digit) is a matrix row covering four columns: the cell itself and the
+ * digit in its row, column and box. Only constraints still open on the board get a column, and
+ * only current candidates get a row, so the givens are already "covered" when the search starts.
+ * Nodes live in parallel int arrays rather than objects, which keeps cover/uncover to a handful
+ * of array writes.
+ *
+ * Every choice is written straight through to the board and recorded as a step, so the UI can
+ * animate a DLX solve exactly like a backtracking one. The matrix already knows what is possible,
+ * so the board's candidate bookkeeping is skipped per step and rebuilt once at the end.
+ */
+class DancingLinks {
+
+    private static final int ROOT = 0;
+
+    private final Board board;
+    private final Geometry geometry;
+    private final int size;
+    private final int cells;
+
+    // Node links; indices 0..columnCount are the root and column headers
+    private int[] left, right, up, down;
+    private int[] column;       // Header of the column a node belongs to
+    private int[] candidateCell;    // Cell and digit of the matrix row a node belongs to
+    private int[] candidateDigit;
+    private int[] columnSize;   // Live node count per header
+    private int nodeCount;
+    private int depth;          // Rows chosen on the current path
+
+    DancingLinks(Board board) {
+        this.board = board;
+        this.geometry = board.geometry();
+        this.size = board.getSize();
+        this.cells = size * size;
+        build();
+    }
+
+    /**
+     * Search for an exact cover. On success the board is left filled; on failure or when the
+     * board asks to stop, it is restored
+     */
+    boolean solve() {
+        try {
+            return search();
+        } finally {
+            board.rebuildCandidates();  // Cells were written without touching the candidates
+        }
+    }
+
+    private void build() {
+        int[] rowOf = geometry.rowOf, colOf = geometry.colOf;
+        int columnCount = 4 * cells;
+
+        int candidateCount = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            candidateCount += Long.bitCount(board.getPossibilities(rowOf[cell], colOf[cell]));
+        }
+
+        int capacity = columnCount + 1 + 4 * candidateCount;
+        left = new int[capacity];
+        right = new int[capacity];
+        up = new int[capacity];
+        down = new int[capacity];
+        column = new int[capacity];
+        candidateCell = new int[capacity];
+        candidateDigit = new int[capacity];
+        columnSize = new int[columnCount + 1];
+
+        // Headers start self-linked; only open constraints are threaded onto the root list
+        left[ROOT] = right[ROOT] = ROOT;
+        for (int header = 1; header <= columnCount; header++) {
+            up[header] = down[header] = header;
+            column[header] = header;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (board.valueAt(rowOf[cell], colOf[cell]) == 0) linkHeader(cellColumn(cell));
+        }
+        for (int unit = 0; unit < size; unit++) {
+            for (int digit = 1; digit <= size; digit++) {
+                if (!unitHolds(unit, digit, 0)) linkHeader(rowColumn(unit, digit));
+                if (!unitHolds(unit, digit, 1)) linkHeader(colColumn(unit, digit));
+                if (!unitHolds(unit, digit, 2)) linkHeader(boxColumn(unit, digit));
+            }
+        }
+
+        nodeCount = columnCount + 1;
+        for (int cell = 0; cell < cells; cell++) {
+            long possibilities = board.getPossibilities(rowOf[cell], colOf[cell]);
+            while (possibilities != 0) {
+                int digit = Long.numberOfTrailingZeros(possibilities);
+                possibilities &= possibilities - 1;
+
+                int first = addNode(cellColumn(cell), cell, digit, -1);
+                addNode(rowColumn(rowOf[cell], digit), cell, digit, first);
+                addNode(colColumn(colOf[cell], digit), cell, digit, first);
+                addNode(boxColumn(geometry.boxOf[cell], digit), cell, digit, first);
+            }
+        }
+    }
+
+    private boolean unitHolds(int unit, int digit, int kind) {
+        int[] unitCells = geometry.unitCells;
+        int first = (kind * size + unit) * size;
+        for (int k = first; k < first + size; k++) {
+            int cell = unitCells[k];
+            if (board.valueAt(geometry.rowOf[cell], geometry.colOf[cell]) == digit) return true;
+        }
+        return false;
+    }
+
+    // Column header indices (1-based, 0 is the root)
+    private int cellColumn(int cell)          { return 1 + cell; }
+    private int rowColumn(int row, int digit) { return 1 + cells + row * size + digit - 1; }
+    private int colColumn(int col, int digit) { return 1 + 2 * cells + col * size + digit - 1; }
+    private int boxColumn(int box, int digit) { return 1 + 3 * cells + box * size + digit - 1; }
+
+    private void linkHeader(int header) {
+        left[header] = left[ROOT];
+        right[header] = ROOT;
+        right[left[ROOT]] = header;
+        left[ROOT] = header;
+    }
+
+    /**
+     * Append a node to the bottom of a column and to the right end of its matrix row
+     */
+    private int addNode(int header, int cell, int digit, int rowStart) {
+        int node = nodeCount++;
+        column[node] = header;
+        candidateCell[node] = cell;
+        candidateDigit[node] = digit;
+
+        up[node] = up[header];
+        down[node] = header;
+        down[up[header]] = node;
+        up[header] = node;
+        columnSize[header]++;
+
+        if (rowStart < 0) {
+            left[node] = right[node] = node;
+        } else {
+            left[node] = left[rowStart];
+            right[node] = rowStart;
+            right[left[rowStart]] = node;
+            left[rowStart] = node;
+        }
+        return node;
+    }
+
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                columnSize[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                columnSize[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+    private boolean search() {
+        SolveStats stats = board.getSolveStats();
+        stats.node(depth);
+        board.notePartial();
+        if (right[ROOT] == ROOT) return true; // Every constraint satisfied
+        if (board.shouldStop()) return false;
+
+        // Choose the column with the fewest remaining rows
+        int best = right[ROOT];
+        for (int header = right[best]; header != ROOT; header = right[header]) {
+            if (columnSize[header] < columnSize[best]) {
+                best = header;
+                if (columnSize[best] <= 1) break;
+            }
+        }
+        if (columnSize[best] == 0) return false; // Dead end
+
+        cover(best);
+        for (int node = down[best]; node != best; node = down[node]) {
+            int cell = candidateCell[node], digit = candidateDigit[node];
+            int row = geometry.rowOf[cell], col = geometry.colOf[cell];
+
+            for (int j = right[node]; j != node; j = right[j]) cover(column[j]);
+            board.writeCell(row, col, digit);
+            board.recordStep(row, col, digit);
+            stats.guess();
+
+            depth++;
+            boolean solved = search();
+            depth--;
+            if (solved) return true;
+
+            stats.backtrack();
+            board.writeCell(row, col, 0);
+            board.recordStep(row, col, 0);
+            for (int j = left[node]; j != node; j = left[j]) uncover(column[j]);
+
+            if (board.wasAborted()) break; // Unwind without trying the remaining rows
+        }
+        uncover(best);
+        return false;
+    }
+}
@@ -0,0 +1,157 @@
+package com.dooku;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Rates how hard a puzzle is for a human solver, from what it takes to crack it.
+ *
+ * Grading runs on the puzzle's own {@link Board}. Most puzzles fall to singles, so a singles-only
+ * search (the bitboard kernel for 9x9) goes first; if it never had to guess, that is the grade.
+ * Otherwise singles and every {@link Technique} are applied at the root, each technique only once
+ * the cheaper ones are stuck, so the hardest technique that fires is the hardest one the puzzle
+ * really needs. Whatever logic leaves open is finished by the singles-only search again, and its
+ * guesses are counted. Boards are reused as they are, so a thread can grade puzzle after puzzle on
+ * one board.
+ *
+ * Ratings follow the familiar Sudoku Explainer scale for the techniques we have: 1.5 for singles,
+ * 2.6 to 4.0 for locked candidates, subsets and fish, and 5.0 and up for puzzles that need
+ * guessing, growing with the log of the guess count.
+ */
+public class DifficultyGrader {
+
+    /**
+     * Coarse bands of the rating
+     */
+    public enum Tier {
+        EASY,       // Singles only
+        MEDIUM,     // Locked candidates
+        HARD,       // Pairs and X-Wings
+        EXPERT,     // Triples and Swordfish
+        EXTREME;    // Logic runs out - needs guessing
+
+        static Tier of(double rating) {
+            if (rating <= SINGLES_RATING) return EASY;
+            if (rating <= 2.8) return MEDIUM;
+            if (rating <= 3.4) return HARD;
+            if (rating < GUESS_RATING) return EXPERT;
+            return EXTREME;
+        }
+    }
+
+    /**
+     * How hard one puzzle is
+     */
+    public static class Grade {
+        private final Technique hardest;
+        private final long guesses;
+        private final double rating;
+
+        Grade(Technique hardest, long guesses, double rating) {
+            this.hardest = hardest;
+            this.guesses = guesses;
+            this.rating = rating;
+        }
+
+        /**
+         * Hardest technique the logical pass needed, or null if singles were enough
+         */
+        public Technique getHardest() {
+            return hardest;
+        }
+
+        /**
+         * Guesses the search made after logic ran out; 0 for puzzles solved by logic alone
+         */
+        public long getGuesses() {
+            return guesses;
+        }
+
+        public boolean needsGuessing() {
+            return rating >= GUESS_RATING;
+        }
+
+        public double getRating() {
+            return rating;
+        }
+
+        public Tier getTier() {
+            return Tier.of(rating);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.1f %s (%s, %d guesses)", rating, getTier(),
+                hardest == null ? "Singles" : hardest.getDisplayName(), guesses);
+        }
+    }
+
+    static final double SINGLES_RATING = 1.5;
+    static final double GUESS_RATING = 5.0;
+
+    // Per Technique ordinal, rising with it: the board tries techniques in declaration order
+    private static final double[] TECHNIQUE_RATING = new double[Technique.values().length];
+
+    static {
+        TECHNIQUE_RATING[Technique.POINTING_PAIR.ordinal()] = 2.6;
+        TECHNIQUE_RATING[Technique.BOX_LINE_REDUCTION.ordinal()] = 2.8;
+        TECHNIQUE_RATING[Technique.NAKED_PAIR.ordinal()] = 3.0;
+        TECHNIQUE_RATING[Technique.X_WING.ordinal()] = 3.2;
+        TECHNIQUE_RATING[Technique.HIDDEN_PAIR.ordinal()] = 3.4;
+        TECHNIQUE_RATING[Technique.NAKED_TRIPLE.ordinal()] = 3.6;
+        TECHNIQUE_RATING[Technique.SWORDFISH.ordinal()] = 3.8;
+        TECHNIQUE_RATING[Technique.HIDDEN_TRIPLE.ordinal()] = 4.0;
+    }
+
+    private static final Set<Technique> ALL = EnumSet.allOf(Technique.class);
+    private static final Set<Technique> NONE = EnumSet.noneOf(Technique.class);
+
+    private DifficultyGrader() {
+    }
+
+    /**
+     * Grade the puzzle on a board. The board is left solved, or holding whatever logic placed if
+     * the puzzle has no solution; its technique and recording settings are put back afterwards
+     *
+     * @return The grade, or null if the puzzle has no solution (or the solve was cancelled)
+     */
+    public static Grade grade(Board board) {
+        Set<Technique> techniques = board.getTechniques();
+        boolean recording = board.isRecording();
+        board.setRecording(false);
+        try {
+            board.setTechniques(NONE);
+            if (board.countSolutions(1) == 0) return null;
+            if (board.getSolveStats().getGuesses() == 0) {
+                board.solve();
+                return new Grade(null, 0, SINGLES_RATING);
+            }
+
+            board.setTechniques(ALL);
+            if (!board.deduce()) return null;
+
+            Technique hardest = null;
+            double rating = SINGLES_RATING;
+            TechniqueStats stats = board.getTechniqueStats();
+            for (Technique technique : Technique.values()) {
+                if (stats.getFires(technique) > 0 && TECHNIQUE_RATING[technique.ordinal()] > rating) {
+                    hardest = technique;
+                    rating = TECHNIQUE_RATING[technique.ordinal()];
+                }
+            }
+            boolean logical = board.getEmptyCount() == 0;
+
+            if (logical) return new Grade(hardest, 0, rating);
+
+            board.setTechniques(NONE);
+            board.solve();
+            if (board.getEmptyCount() != 0) return null;
+            long guesses = board.getSolveStats().getGuesses();
+            return new Grade(hardest, guesses, GUESS_RATING + Math.log(1 + guesses) / Math.log(2));
+        } finally {
+            board.setTechniques(techniques);
+            board.setRecording(recording);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.dooku;
+
+/**
+ * Lookup tables for the layout of one grid size, so the solver's inner loops index arrays instead
+ * of dividing. Built on first use and shared by every board of that size; all tables are final
+ * and never written after construction, so boards on any thread can read them freely.
+ *
+ * Cells are numbered row * size + col. Units follow the board's numbering: rows (0..size-1), then
+ * columns, then boxes, and a unit's k-th cell is its column, its row, or its row-major position
+ * in the box respectively.
+ */
+final class Geometry {
+
+    private static final Geometry[] SHARED = new Geometry[Board.MAX_N + 1];
+
+    final int n;
+    final int size;
+
+    // Per cell
+    final int[] rowOf;
+    final int[] colOf;
+    final int[] boxOf;
+    final int[] boxPosOf;       // Row-major position inside its box
+
+    // UI coordinates per cell, four in a row: box row, box column, row in box, column in box
+    final int[] uiOf;
+
+    // Cells of each unit, unit * size + k
+    final int[] unitCells;
+
+    // Every cell sharing a unit with the cell, each once: peerCount of them from cell * peerCount
+    final int peerCount;
+    final int[] peers;
+
+    /**
+     * Tables for grids of dimension n. Two threads asking first may both build them; either copy
+     * is correct, and the final fields make whichever one lands safe to share
+     */
+    static Geometry of(int n) {
+        Geometry geometry = SHARED[n];
+        if (geometry == null) SHARED[n] = geometry = new Geometry(n);
+        return geometry;
+    }
+
+    private Geometry(int n) {
+        this.n = n;
+        this.size = n * n;
+        int cells = size * size;
+
+        rowOf = new int[cells];
+        colOf = new int[cells];
+        boxOf = new int[cells];
+        boxPosOf = new int[cells];
+        uiOf = new int[4 * cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / size, col = cell % size;
+            rowOf[cell] = row;
+            colOf[cell] = col;
+            boxOf[cell] = (row / n) * n + col / n;
+            boxPosOf[cell] = (row % n) * n + col % n;
+            uiOf[4 * cell] = row / n;
+            uiOf[4 * cell + 1] = col / n;
+            uiOf[4 * cell + 2] = row % n;
+            uiOf[4 * cell + 3] = col % n;
+        }
+
+        unitCells = new int[3 * size * size];
+        for (int k = 0; k < size; k++) {
+            for (int index = 0; index < size; index++) {
+                unitCells[index * size + k] = index * size + k;
+                unitCells[(size + index) * size + k] = k * size + index;
+                unitCells[(2 * size + index) * size + k] = ((index / n) * n + k / n) * size + (index % n) * n + k % n;
+            }
+        }
+
+        // Row and column peers, then the rest of the box
+        peerCount = 2 * (size - 1) + (n - 1) * (n - 1);
+        peers = new int[cells * peerCount];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = rowOf[cell], col = colOf[cell];
+            int next = cell * peerCount;
+            for (int k = 0; k < size; k++) {
+                if (k != col) peers[next++] = row * size + k;
+                if (k != row) peers[next++] = k * size + col;
+            }
+            for (int k = 0; k < size; k++) {
+                int other = unitCells[(2 * size + boxOf[cell]) * size + k];
+                if (rowOf[other] != row && colOf[other] != col) peers[next++] = other;
+            }
+        }
+    }
+
+    /**
+     * Unit index of a cell's row, column or box (kind 0, 1, 2)
+     */
+    int unitOf(int cell, int kind) {
+        switch (kind) {
+            case 0:  return rowOf[cell];
+            case 1:  return size + colOf[cell];
+            default: return 2 * size + boxOf[cell];
+        }
+    }
+}
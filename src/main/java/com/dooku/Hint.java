@@ -0,0 +1,75 @@
+package com.dooku;
+
+import java.util.Locale;
+
+/**
+ * The next step a person could take on a board, from {@link Board#hint()}: which cell to fill
+ * with what, the deduction that finds it, and the cells that deduction rests on - for a single,
+ * the filled cells that rule out everything else; after a technique, also the cells it cleared
+ * candidates from.
+ */
+public class Hint {
+
+    private final int row;
+    private final int col;
+    private final int value;
+    private final boolean hidden;
+    private final Technique technique;
+    private final int[] cells;
+
+    Hint(int row, int col, int value, boolean hidden, Technique technique, int[] cells) {
+        this.row = row;
+        this.col = col;
+        this.value = value;
+        this.hidden = hidden;
+        this.technique = technique;
+        this.cells = cells;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * The technique that had to clear candidates before the single showed, or null if the
+     * single was there already
+     */
+    public Technique getTechnique() {
+        return technique;
+    }
+
+    /**
+     * True for a digit with one place left in a unit, false for a cell with one digit left
+     */
+    public boolean isHiddenSingle() {
+        return hidden;
+    }
+
+    /**
+     * What to tell the user: the technique's name, or the kind of single
+     */
+    public String getTechniqueName() {
+        if (technique != null) return technique.getDisplayName();
+        return hidden ? "Hidden single" : "Naked single";
+    }
+
+    /**
+     * Cells involved, as row * size + col, the hinted cell not included
+     */
+    public int[] getCells() {
+        return cells.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: row %d, column %d is %d", getTechniqueName(), row + 1, col + 1, value);
+    }
+}
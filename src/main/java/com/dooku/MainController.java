@@ -1,6 +1,8 @@
 package com.dooku;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.DoubleProperty;
@@ -29,6 +31,9 @@ import javafx.scene.layout.Priority;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.Tooltip;
+import javafx.concurrent.Worker;
 
 import javafx.scene.text.Font;
 
@@ -56,13 +61,20 @@ public class MainController {       // Loose coupling between UI(client) and log
     private GridPane board = null;
     @FXML
     private HBox options = null;
+    @FXML
+    private ProgressIndicator progress = null;
+    @FXML
+    private Button stopButton = null;
     
     private final int dim = SettingsController.getSetting("dimensions", Integer.class);     // if a new instance is created for each time a scene graph from main.fxml is constructed, then this final modifier should be harmless
     private final String color = SettingsController.getSetting("bgcolor", String.class);
     private Board lBoard = new Board(dim);   //// incorrrectded
+    private final Geometry geometry = Geometry.of(dim);     // Cell index -> tile coordinates, shared with the board
 
     // Alerts
     private Alert closingAlert = new Alert(AlertType.CONFIRMATION);
+    private Alert unsolvedAlert = new Alert(AlertType.INFORMATION);
+    private Alert hintAlert = new Alert(AlertType.INFORMATION);
         
     @FXML
     private void initialize() throws IOException{
@@ -91,6 +103,10 @@ public class MainController {       // Loose coupling between UI(client) and log
                     if (lastTileFocused != null)
                         navigateToTile(lastTileFocused[0], lastTileFocused[1], lastTileFocused[2], lastTileFocused[3]);
                     break;
+                case H:     // Ctrl/Cmd+H, so a plain h doesn't land in the focused tile
+                    if (e.isShortcutDown() && !root.isLocked)
+                        showHint();
+                    break;
                 default:
                     return;
             }
@@ -124,58 +140,139 @@ public class MainController {       // Loose coupling between UI(client) and log
         if (root.isLocked)
             return;  
         root.isLocked=true;
+        clearHint();
+
+        setTilesEditable(false);   // Can't be edited by user no more
+
+        // Solver runs on a background service and streams steps to the animation while it searches. With SAMPLE the solver
+        // never waits for the UI; steps that don't fit in the buffer are dropped, so memory stays at the buffer size
+        StepChannel channel = new StepChannel(STEP_BUFFER, StepChannel.OverflowPolicy.SAMPLE);
+        lBoard.setTraceSearch(true);    // Animate the search itself, dead ends included
+        solveService = new SolveService(lBoard, Board.Engine.BACKTRACKING, SOLVE_TIMEOUT_MILLIS, channel);
+        progress.visibleProperty().bind(solveService.runningProperty());
+        Tooltip searchRate = new Tooltip();
+        searchRate.textProperty().bind(solveService.messageProperty());
+        progress.setTooltip(searchRate);
+        stopButton.disableProperty().bind(solveService.runningProperty().not());
+        solveService.start();
+
+        solveAnimation = new AnimationTimer() {
+            private long lastFrame = -1;
+            private long budget = 0;    // Nanoseconds of animation time not yet spent on steps
+
+            @Override
+            public void handle(long now) {
+                budget += (lastFrame < 0) ? STEP_NANOS : now - lastFrame;
+                lastFrame = now;
+                while (budget >= STEP_NANOS) {
+                    long step = channel.poll();
+                    if (step == StepChannel.EMPTY) {    // Solver hasn't produced more yet; don't bank the idle time
+                        budget = 0;
+                        break;
+                    }
+                    budget -= STEP_NANOS;
+                    showStep(StepLog.cellOf(step), StepLog.valueOf(step));
+                }
+                if (channel.isDrained()) {
+                    stop();
+                    if (channel.droppedCount() > 0 || !lBoard.isSolved())     // Sampled steps can leave stale tiles behind, so show the final board as is
+                        showBoard();
+                    if (!lBoard.isSolved())
+                        solveFailed();
+                }
+            }
+        };
+        solveAnimation.start();
+    }
+    // Animations
+    private static final int STEP_BUFFER = 1 << 12;                 // Steps buffered between solver and animation
+    private static final long STEP_NANOS = 5_000_000;              // Animation time per step (5ms)
+    private AnimationTimer solveAnimation = null;
+    // Background solving
+    private static final long SOLVE_TIMEOUT_MILLIS = 60_000;       // Give up on a solve after a minute
+    private SolveService solveService = null;
 
+    @FXML
+    private void stopSolve() {
+        if (solveService != null && solveService.isRunning())
+            solveService.cancel();      // Board unwinds back to the givens; the animation finishes with what it has
+    }
+
+    private void solveFailed() {      // Board only holds the givens again, so let the user fix them and retry
+        boolean stopped = lBoard.wasAborted() || solveService.getState() == Worker.State.CANCELLED;
+        unsolvedAlert.setContentText(stopped ? "Solving was stopped before a solution was found." : "This puzzle has no solution.");
+        unsolvedAlert.show();
+        setTilesEditable(true);
+        root.isLocked = false;
+    }
+
+    private void setTilesEditable(boolean editable) {
         for (int i=0; i<dim; i++)
             for (int j=0; j<dim; j++)
                 for (int k=0; k<dim; k++)
                     for (int l=0; l<dim; l++)
-                        tiles[i][j][k][l].setEditable(false);   // Can't be edited by user no more
-
-        // Thread logicThread = new Thread(new Runnable() {
-        //     public void run() {
-        //         lBoard.solve();
-        //     }
-        // });
-        // logicThread.start();
-        lBoard.solve();
-
-        // for (int i=0; i<dim; i++) {
-        //     for (int j=0; j<dim; j++) {
-        //         for (int k=0; k<dim; k++){
-        //             for (int l=0; l<dim; l++) {
-        //                 if (tiles[i][j][k][l].getText()=="") {
-        //                     tiles[i][j][k][l].setText(""+lBoard.board[i][j][k][l]);
-        //                     tiles[i][j][k][l].setStyle("-fx-text-fill: black;");
-        //                 }
-        //                 // tiles[i][j][k][l].setEditable(false);
-        //                 // tiles[i][j][k][l].setMouseTransparent(true);
-        //             }
-        //         }
-        //     }
-        // }
-
-        while (!lBoard.observableState.isEmpty()) {
-            int[] step = lBoard.observableState.pollFirst();    // Ordered tuple having all information regarding step that we took
-            int value = step[0];    int i, j, k, l;
-            i=step[1];  j=step[2];  k=step[3];  l=step[4];
-
-            PauseTransition p = new PauseTransition( Duration.millis(5) );
-            p.setOnFinished( e -> {
-                MainScene.Tile t = tiles[i][j][k][l];
-                t.setStyle("-fx-text-fill: black;");
-                t.setText(""+ ((value!=0) ? value : ""));   // value=0 in step means backtrack, else extension try
-            });
-            solveAnimation.getChildren().add(p);
+                        tiles[i][j][k][l].setEditable(editable);
+    }
+
+    private void showStep(int cell, int value) {      // value=0 in step means backtrack, else extension try
+        MainScene.Tile t = tileAt(cell);
+        t.setStyle("-fx-text-fill: black;");
+        t.setText(""+ ((value!=0) ? value : ""));
+    }
+
+    private final Map<MainScene.Tile, String> hintStyles = new HashMap<>();     // Tiles marked by the shown hint, with the style to go back to
+
+    private void showHint() {      // Board.hint() is cheap and leaves the board alone, so this can run as often as the user likes
+        root.requestFocus();    // Commits whatever is typed in the focused tile first
+        clearHint();
+        Hint hint = lBoard.hint();
+        if (hint == null) {
+            hintAlert.setContentText(lBoard.getEmptyCount() == 0 ? "The board is already full." : "No step from here without guessing - or the board has a mistake.");
+            hintAlert.show();
+            return;
         }
+        for (int cell : hint.getCells())
+            markHint(cell, "-fx-background-color: khaki;");
+        MainScene.Tile target = markHint(hint.getRow()*dim*dim + hint.getCol(), "-fx-background-color: palegreen;");
+        target.setPromptText(""+hint.getValue());
+        target.setTooltip(new Tooltip(hint.toString()));
+    }
 
-        solveAnimation.play();
+    private MainScene.Tile markHint(int cell, String style) {
+        MainScene.Tile t = tileAt(cell);
+        hintStyles.putIfAbsent(t, t.getStyle());
+        t.setStyle(hintStyles.get(t) + style);
+        return t;
+    }
+
+    private MainScene.Tile tileAt(int cell) {
+        int[] ui = geometry.uiOf;
+        return tiles[ui[4*cell]][ui[4*cell + 1]][ui[4*cell + 2]][ui[4*cell + 3]];
+    }
+
+    private void clearHint() {
+        hintStyles.forEach( (t, style) -> {
+            t.setStyle(style);
+            t.setPromptText("");
+            t.setTooltip(null);
+        });
+        hintStyles.clear();
+    }
+
+    private void showBoard() {      // Only touches tiles that disagree with the board, so givens keep their style
+        for (int cell=0; cell<dim*dim*dim*dim; cell++) {
+            int value = lBoard.valueAt(geometry.rowOf[cell], geometry.colOf[cell]);
+            if (!tileAt(cell).getText().equals((value!=0) ? ""+value : ""))
+                showStep(cell, value);
+        }
     }
-    // Animations
-    private SequentialTransition solveAnimation = new SequentialTransition();
     
     @FXML
     private void clear() throws IOException{    // New instances of scene,controller only when refreshing (closing->opening XOR clearing). Keep track of all information between instances
         prevHeight = root.getHeight();  prevWidth = root.getWidth();
+        stopSolve();
+        if (solveAnimation != null)
+            solveAnimation.stop();
         new MainScene(dim);
     }
 
@@ -283,6 +380,7 @@ public class MainController {       // Loose coupling between UI(client) and log
                                                                 
                                 if (tile.lastEntered.equals( tile.getText() ))     // We either hovered, or thought of editing, but no change in input!
                                     return;
+                                clearHint();    // Stale once the board changes
                                 // System.out.printf("We're still here\n");
                                 boolean isPlaced=false;
                                 int input;
@@ -0,0 +1,103 @@
+package com.dooku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fork/join split of the backtracking search for {@link Board#solveParallel(int)}.
+ *
+ * The top few levels of the search tree are expanded eagerly: each task propagates singles on
+ * its own board copy, picks the most constrained cell and forks one subtask per candidate. Below
+ * the split depth a task just runs the ordinary sequential backtracker. Expanding roughly four
+ * leaves per worker gives work stealing enough slack to balance uneven subtrees.
+ *
+ * All copies share one stop flag. The first branch to find a solution raises it, and every
+ * other branch sees it at its next search node and unwinds. Each task's search stats are summed
+ * into its parent's once its subtasks are done, so the original board ends up with the total.
+ */
+class ParallelSolver {
+
+    private static final int EXTRA_SPLIT_LEVELS = 2;
+
+    private final int parallelism;
+
+    ParallelSolver(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return A solved copy of the board, or null if there is no solution or the stop flag was raised first
+     */
+    Board solve(Board board, AtomicBoolean stop) {
+        int splitDepth = (32 - Integer.numberOfLeadingZeros(parallelism - 1)) + EXTRA_SPLIT_LEVELS;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Branch root = new Branch(board.branchCopy(stop), stop, splitDepth);
+        try {
+            return pool.invoke(root);
+        } finally {
+            pool.shutdownNow();
+            board.getSolveStats().add(root.board.getSolveStats());
+        }
+    }
+
+    private static class Branch extends RecursiveTask<Board> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final AtomicBoolean stop;
+        private final int depthLeft;
+
+        Branch(Board board, AtomicBoolean stop, int depthLeft) {
+            this.board = board;
+            this.stop = stop;
+            this.depthLeft = depthLeft;
+        }
+
+        @Override
+        protected Board compute() {
+            if (board.shouldStop()) return null;
+
+            if (depthLeft == 0) {
+                return board.solveWithBacktracking() ? win() : null;
+            }
+
+            if (!board.propagate()) return null;
+            if (board.getEmptyCount() == 0) return win();
+
+            int cell = board.findMostConstrainedVariable();
+            Geometry geometry = board.geometry();
+            int row = geometry.rowOf[cell], col = geometry.colOf[cell];
+            long possibilities = board.getPossibilities(row, col);
+
+            List<Branch> branches = new ArrayList<>(Long.bitCount(possibilities));
+            while (possibilities != 0) {
+                int value = Long.numberOfTrailingZeros(possibilities);
+                possibilities &= possibilities - 1;
+
+                Board child = board.branchCopy(stop);
+                child.placeDigitInternal(row, col, value);
+                branches.add(new Branch(child, stop, depthLeft - 1));
+            }
+            invokeAll(branches);
+
+            // Every branch has finished by now; its board's stats hold its subtree's work
+            Board solved = null;
+            for (Branch branch : branches) {
+                board.getSolveStats().add(branch.board.getSolveStats());
+                if (solved == null) solved = branch.join();
+            }
+            return solved;
+        }
+
+        private Board win() {
+            stop.set(true);     // Siblings unwind at their next node
+            return board;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.dooku;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Algorithm portfolio for {@link Board#solvePortfolio(PortfolioSolver)}.
+ *
+ * Search time on hard puzzles swings by orders of magnitude with the branching order, and no one
+ * order is best everywhere. Rather than split one search the way {@link ParallelSolver} does, a
+ * portfolio races complete searches that differ in engine, branching, value order, seed and
+ * techniques, each on its own copy of the board and its own thread. The copies share a stop flag:
+ * the first racer to settle the puzzle raises it, and the others unwind at their next search node.
+ *
+ * Wins are counted per strategy over the life of the portfolio, so a run over a representative
+ * corpus shows which strategies earn their core and which can be dropped. One portfolio can serve
+ * many threads at once; its racers run on a shared pool of daemon threads that grows as needed.
+ */
+public class PortfolioSolver {
+
+    /**
+     * One way of searching: an engine plus the backtracker's branching settings
+     */
+    public static final class Strategy {
+        private final String name;
+        private final Board.Engine engine;
+        private final Board.Branching branching;
+        private final Board.ValueOrder valueOrder;
+        private final long seed;
+        private final Set<Technique> techniques;
+
+        public Strategy(String name, Board.Engine engine, Board.Branching branching, Board.ValueOrder valueOrder,
+                        long seed, Set<Technique> techniques) {
+            this.name = Objects.requireNonNull(name);
+            this.engine = Objects.requireNonNull(engine);
+            this.branching = Objects.requireNonNull(branching);
+            this.valueOrder = Objects.requireNonNull(valueOrder);
+            this.seed = seed;
+            this.techniques = techniques.isEmpty() ? EnumSet.noneOf(Technique.class) : EnumSet.copyOf(techniques);
+        }
+
+        public String getName() { return name; }
+        public Board.Engine getEngine() { return engine; }
+        public Board.Branching getBranching() { return branching; }
+        public Board.ValueOrder getValueOrder() { return valueOrder; }
+        public long getSeed() { return seed; }
+        public Set<Technique> getTechniques() { return Collections.unmodifiableSet(techniques); }
+
+        void configure(Board board) {
+            board.setSearchOrder(branching, valueOrder, seed);
+            board.setTechniques(techniques);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * The racer that settled a puzzle, with the board it settled it on
+     */
+    static final class Result {
+        final int index;
+        final Strategy strategy;
+        final Board board;
+
+        Result(int index, Strategy strategy, Board board) {
+            this.index = index;
+            this.strategy = strategy;
+            this.board = board;
+        }
+    }
+
+    private final List<Strategy> strategies;
+    private final AtomicLongArray wins;
+    private final AtomicLong races = new AtomicLong();
+    private final ExecutorService pool = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "portfolio-racer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The default strategies, one per available core (at least two)
+     */
+    public PortfolioSolver() {
+        this(defaultStrategies(Math.max(2, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public PortfolioSolver(List<Strategy> strategies) {
+        if (strategies.isEmpty()) {
+            throw new IllegalArgumentException("A portfolio needs at least one strategy");
+        }
+        this.strategies = List.copyOf(strategies);
+        this.wins = new AtomicLongArray(strategies.size());
+    }
+
+    /**
+     * The first count of a fixed line-up: the plain backtracker (the bitboard kernel on 9x9),
+     * dancing links, the backtracker counting down, the backtracker with locked candidates, the
+     * SAT engine, then randomised backtrackers with seeds 1, 2, 3 and so on
+     */
+    public static List<Strategy> defaultStrategies(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be at least 1");
+        }
+        Set<Technique> none = EnumSet.noneOf(Technique.class);
+        List<Strategy> all = new ArrayList<>(List.of(
+            new Strategy("mcv", Board.Engine.BACKTRACKING, Board.Branching.MOST_CONSTRAINED, Board.ValueOrder.ASCENDING, 0, none),
+            new Strategy("dlx", Board.Engine.DANCING_LINKS, Board.Branching.MOST_CONSTRAINED, Board.ValueOrder.ASCENDING, 0, none),
+            new Strategy("mcv-descending", Board.Engine.BACKTRACKING, Board.Branching.MOST_CONSTRAINED, Board.ValueOrder.DESCENDING, 0, none),
+            new Strategy("mcv-locked", Board.Engine.BACKTRACKING, Board.Branching.MOST_CONSTRAINED, Board.ValueOrder.ASCENDING, 0,
+                EnumSet.of(Technique.POINTING_PAIR, Technique.BOX_LINE_REDUCTION)),
+            new Strategy("sat", Board.Engine.SAT, Board.Branching.MOST_CONSTRAINED, Board.ValueOrder.ASCENDING, 0, none)));
+        for (int seed = 1; all.size() < count; seed++) {
+            all.add(new Strategy("random-" + seed, Board.Engine.BACKTRACKING, Board.Branching.RANDOM_MOST_CONSTRAINED,
+                Board.ValueOrder.RANDOM, seed, none));
+        }
+        return all.subList(0, count);
+    }
+
+    public List<Strategy> getStrategies() {
+        return strategies;
+    }
+
+    /**
+     * Races run so far, including any stopped before a winner
+     */
+    public long getRaces() {
+        return races.get();
+    }
+
+    /**
+     * Races the strategy won
+     */
+    public long getWins(Strategy strategy) {
+        int index = strategies.indexOf(strategy);
+        if (index < 0) throw new IllegalArgumentException("Not in this portfolio: " + strategy);
+        return wins.get(index);
+    }
+
+    /**
+     * Start every strategy on its own copy of the board and wait for the first to settle it
+     *
+     * @return The winner, or null if every racer was stopped (cancel, deadline, node limit) first
+     */
+    Result race(Board board, AtomicBoolean stop) {
+        CompletionService<Result> racing = new ExecutorCompletionService<>(pool);
+        for (int i = 0; i < strategies.size(); i++) {
+            Strategy strategy = strategies.get(i);
+            Board copy = board.raceCopy(stop);
+            strategy.configure(copy);
+            copy.setSolutionCache(board.getSolutionCache());
+            int index = i;
+            racing.submit(() -> {
+                copy.solve(strategy.engine);
+                return new Result(index, strategy, copy);
+            });
+        }
+
+        try {
+            for (int left = strategies.size(); left > 0; left--) {
+                Result result = racing.take().get();
+                if (result.board.getStatus() != Board.Status.BUDGET_EXHAUSTED) {
+                    wins.incrementAndGet(result.index);
+                    return result;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Portfolio racer failed", e.getCause());
+        } finally {
+            stop.set(true);     // Losers unwind at their next node
+            races.incrementAndGet();
+        }
+    }
+
+    /**
+     * Wins per strategy, e.g. "40 races: mcv 31 (78%), dlx 9 (23%)"
+     */
+    @Override
+    public String toString() {
+        long total = races.get();
+        StringBuilder text = new StringBuilder().append(total).append(" races:");
+        for (int i = 0; i < strategies.size(); i++) {
+            long won = wins.get(i);
+            text.append(i == 0 ? " " : ", ").append(strategies.get(i)).append(' ').append(won)
+                .append(String.format(Locale.ROOT, " (%.0f%%)", total == 0 ? 0.0 : 100.0 * won / total));
+        }
+        return text.toString();
+    }
+}
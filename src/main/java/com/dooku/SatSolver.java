@@ -0,0 +1,553 @@
+package com.dooku;
+
+import java.util.Arrays;
+
+/**
+ * Conflict-driven clause learning (CDCL) SAT search over the current state of a {@link Board}.
+ *
+ * There is one variable per open candidate (cell, digit), true when the cell holds the digit.
+ * The clauses say that every empty cell holds one of its candidates, and every digit still
+ * missing from a row, column or box goes in one of its places there. They also say that no two
+ * of those happen at once; that part is pairwise, since no unit has more than 49 places. As with
+ * dancing links, the givens and anything already ruled out never make it into the formula.
+ *
+ * The search is the usual CDCL loop:
+ * <ul>
+ * <li>unit propagation over two watched literals per clause, with a blocking literal beside each
+ *     watch so satisfied clauses are skipped without being read;</li>
+ * <li>first-UIP conflict analysis, with the learnt clause trimmed of literals its other literals
+ *     already imply;</li>
+ * <li>non-chronological backjumping;</li>
+ * <li>VSIDS branching from a binary heap, seeded so that cells with fewer candidates go first;</li>
+ * <li>Luby restarts.</li>
+ * </ul>
+ * Decisions always try "cell holds digit" first, which is what lets propagation take hold. Where
+ * plain backtracking keeps rediscovering the same contradiction in different parts of the tree,
+ * learnt clauses stop that. This pays off on sparse 25x25 and larger grids.
+ *
+ * The board is not touched until the formula is satisfied. Then the solution is written onto it
+ * and recorded as one step per filled cell. Each decision counts as a search node, each conflict
+ * as a backtrack.
+ */
+class SatSolver {
+
+    private static final byte UNDEF = 0, TRUE = 1, FALSE = -1;
+    private static final int NO_REASON = -1;
+    private static final int RESTART_BASE = 100;       // Conflicts per step of the Luby sequence
+    private static final double ACTIVITY_DECAY = 0.95;
+    private static final double RESCALE_LIMIT = 1e100;
+
+    private final Board board;
+    private final Geometry geometry;
+    private final int size;
+    private final int cells;
+
+    // Variables: one per open candidate. Literal 2v is "variable v is true", 2v+1 its negation
+    private int varCount;
+    private int[] varCell;
+    private int[] varDigit;
+
+    private byte[] value;       // Per literal
+    private int[] level;        // Per variable: decision level it was assigned at
+    private int[] reason;       // Per variable: clause that implied it, or NO_REASON for decisions
+
+    // Clauses back to back: length, then literals. The two watched literals come first, and the
+    // literal a clause implied sits at position 0 while it is a reason
+    private int[] arena = new int[1024];
+    private int arenaSize = 0;
+
+    // Per literal: (clause, blocking literal) pairs for the clauses watching it, visited when it goes false
+    private int[][] watches;
+    private int[] watchSize;
+
+    private int[] trail;
+    private int trailSize = 0;
+    private int propagated = 0;     // Trail entries whose consequences are already drawn
+    private int[] levelStart;       // Trail size at the start of each decision level
+    private int decisionLevel = 0;
+    private int placed = 0;         // True literals on the trail, i.e. digits placed
+    private int bestPlaced = 0;
+
+    // VSIDS: activity per variable and a max-heap of the unassigned ones
+    private double[] activity;
+    private double activityIncrement = 1;
+    private int[] heap;
+    private int heapSize = 0;
+    private int[] heapIndex;    // Position in the heap, -1 when not in it
+
+    // Conflict analysis scratch
+    private boolean[] seen;
+    private int[] learnt;
+    private int[] analyzed;     // The learnt clause before trimming, to clear seen from
+
+    SatSolver(Board board) {
+        this.board = board;
+        this.geometry = board.geometry();
+        this.size = board.getSize();
+        this.cells = size * size;
+    }
+
+    /**
+     * Search for a satisfying assignment. On success the board is left filled; otherwise, or
+     * when the board asks to stop, it is left as it was
+     */
+    boolean solve() {
+        if (!encode()) return false;
+        if (!search()) return false;
+
+        for (int v = 0; v < varCount; v++) {
+            if (value[2 * v] != TRUE) continue;
+            int row = geometry.rowOf[varCell[v]], col = geometry.colOf[varCell[v]];
+            board.writeCell(row, col, varDigit[v]);
+            board.recordStep(row, col, varDigit[v]);
+        }
+        board.rebuildCandidates();  // Cells were written without touching the candidates
+        return true;
+    }
+
+    /**
+     * Build the formula from the board's open candidates
+     *
+     * @return false if it is contradictory before any search
+     */
+    private boolean encode() {
+        int[] grid = new int[cells];
+        long[] possibilities = new long[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = geometry.rowOf[cell], col = geometry.colOf[cell];
+            grid[cell] = board.valueAt(row, col);
+            possibilities[cell] = grid[cell] == 0 ? board.getPossibilities(row, col) : 0;
+            varCount += Long.bitCount(possibilities[cell]);
+        }
+        int[] varOf = new int[cells * size];
+        Arrays.fill(varOf, -1);
+
+        varCell = new int[varCount];
+        varDigit = new int[varCount];
+        value = new byte[2 * varCount];
+        level = new int[varCount];
+        reason = new int[varCount];
+        activity = new double[varCount];
+        seen = new boolean[varCount];
+        learnt = new int[varCount + 1];
+        analyzed = new int[varCount + 1];
+        trail = new int[varCount];
+        levelStart = new int[varCount + 1];
+        watches = new int[2 * varCount][];    // Allocated on first watch
+        watchSize = new int[2 * varCount];
+
+        int next = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            for (long rest = possibilities[cell]; rest != 0; rest &= rest - 1) {
+                int digit = Long.numberOfTrailingZeros(rest);
+                varCell[next] = cell;
+                varDigit[next] = digit;
+                varOf[cell * size + digit - 1] = next;
+                // Fewer candidates first until conflicts take over; kept below one bump
+                activity[next] = (double) (size - Long.bitCount(possibilities[cell])) / size;
+                next++;
+            }
+        }
+
+        int[] clause = new int[size];
+        int[] units = new int[cells + 3 * cells];
+        int unitCount = 0;
+
+        // Each empty cell holds one of its candidates, and no two
+        for (int cell = 0; cell < cells; cell++) {
+            if (grid[cell] != 0) continue;
+            int length = 0;
+            for (int digit = 1; digit <= size; digit++) {
+                int v = varOf[cell * size + digit - 1];
+                if (v >= 0) clause[length++] = 2 * v;
+            }
+            if (length == 0) return false;
+            if (length == 1) units[unitCount++] = clause[0];
+            else addClause(clause, length);
+            atMostOne(clause, length, false);
+        }
+
+        // Each digit missing from a unit goes in one of its places, and only one. Two places
+        // sharing a box and a line are already covered by the line, so boxes skip them
+        long allDigits = (1L << (size + 1)) - 2;
+        for (int unit = 0; unit < 3 * size; unit++) {
+            long missing = allDigits;
+            for (int k = 0; k < size; k++) {
+                missing &= ~(1L << grid[geometry.unitCells[unit * size + k]]);
+            }
+            for (; missing != 0; missing &= missing - 1) {
+                int digit = Long.numberOfTrailingZeros(missing);
+                int length = 0;
+                for (int k = 0; k < size; k++) {
+                    int v = varOf[geometry.unitCells[unit * size + k] * size + digit - 1];
+                    if (v >= 0) clause[length++] = 2 * v;
+                }
+                if (length == 0) return false;
+                if (length == 1) units[unitCount++] = clause[0];
+                else addClause(clause, length);
+                atMostOne(clause, length, unit >= 2 * size);
+            }
+        }
+
+        heap = new int[varCount];
+        heapIndex = new int[varCount];
+        Arrays.fill(heapIndex, -1);
+        for (int v = 0; v < varCount; v++) {
+            heapInsert(v);
+        }
+
+        for (int i = 0; i < unitCount; i++) {
+            if (value[units[i]] == FALSE) return false;
+            if (value[units[i]] == UNDEF) assign(units[i], NO_REASON);
+        }
+        return true;
+    }
+
+    /**
+     * A binary clause "not both" for every pair of the literals, skipping pairs of cells that
+     * share a row or column if asked
+     */
+    private void atMostOne(int[] lits, int length, boolean skipSharedLines) {
+        int[] pair = new int[2];
+        for (int a = 0; a < length; a++) {
+            for (int b = a + 1; b < length; b++) {
+                if (skipSharedLines) {
+                    int cellA = varCell[lits[a] >> 1], cellB = varCell[lits[b] >> 1];
+                    if (geometry.rowOf[cellA] == geometry.rowOf[cellB] || geometry.colOf[cellA] == geometry.colOf[cellB]) continue;
+                }
+                pair[0] = lits[a] ^ 1;
+                pair[1] = lits[b] ^ 1;
+                addClause(pair, 2);
+            }
+        }
+    }
+
+    /**
+     * Store a clause of at least two literals and watch its first two
+     *
+     * @return Its reference
+     */
+    private int addClause(int[] lits, int length) {
+        if (arenaSize + length + 1 > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length + 1));
+        }
+        int ref = arenaSize;
+        arena[arenaSize++] = length;
+        System.arraycopy(lits, 0, arena, arenaSize, length);
+        arenaSize += length;
+        watch(lits[0], ref, lits[1]);
+        watch(lits[1], ref, lits[0]);
+        return ref;
+    }
+
+    private void watch(int lit, int ref, int blocker) {
+        int[] list = watches[lit];
+        int count = watchSize[lit];
+        if (list == null) list = watches[lit] = new int[8];
+        else if (count + 2 > list.length) list = watches[lit] = Arrays.copyOf(list, list.length * 2);
+        list[count] = ref;
+        list[count + 1] = blocker;
+        watchSize[lit] = count + 2;
+    }
+
+    private void assign(int lit, int why) {
+        int v = lit >> 1;
+        value[lit] = TRUE;
+        value[lit ^ 1] = FALSE;
+        level[v] = decisionLevel;
+        reason[v] = why;
+        trail[trailSize++] = lit;
+        if ((lit & 1) == 0) placed++;
+    }
+
+    /**
+     * Draw every consequence of the trail so far
+     *
+     * @return A clause left with all literals false, or -1 if there is none
+     */
+    private int propagate() {
+        while (propagated < trailSize) {
+            int falseLit = trail[propagated++] ^ 1;
+            int count = watchSize[falseLit];
+            if (count == 0) continue;
+            int[] list = watches[falseLit];
+            int kept = 0;
+            int conflict = -1;
+
+            for (int i = 0; i < count; i += 2) {
+                int ref = list[i], blocker = list[i + 1];
+                if (value[blocker] == TRUE) {
+                    list[kept++] = ref;
+                    list[kept++] = blocker;
+                    continue;
+                }
+
+                // Keep the false literal in the second watch slot
+                int start = ref + 1;
+                if (arena[start] == falseLit) {
+                    arena[start] = arena[start + 1];
+                    arena[start + 1] = falseLit;
+                }
+                int first = arena[start];
+                if (first != blocker && value[first] == TRUE) {
+                    list[kept++] = ref;
+                    list[kept++] = first;
+                    continue;
+                }
+
+                // Move the watch to any literal that isn't false
+                int length = arena[ref];
+                boolean moved = false;
+                for (int k = 2; k < length; k++) {
+                    int lit = arena[start + k];
+                    if (value[lit] != FALSE) {
+                        arena[start + 1] = lit;
+                        arena[start + k] = falseLit;
+                        watch(lit, ref, first);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) continue;
+
+                // Unit or conflicting: the clause keeps watching this literal either way
+                list[kept++] = ref;
+                list[kept++] = first;
+                if (value[first] == FALSE) {
+                    conflict = ref;
+                    for (i += 2; i < count; i++) list[kept++] = list[i];
+                    break;
+                }
+                assign(first, ref);
+            }
+            watchSize[falseLit] = kept;
+            if (conflict >= 0) {
+                propagated = trailSize;
+                return conflict;
+            }
+        }
+        return -1;
+    }
+
+    private boolean search() {
+        SolveStats stats = board.getSolveStats();
+        int restarts = 0;
+        long conflictsLeft = luby(0) * RESTART_BASE;
+
+        while (true) {
+            int conflict = propagate();
+            if (conflict >= 0) {
+                stats.backtrack();
+                if (decisionLevel == 0) return false;   // Contradiction without any decision
+                learn(conflict);
+                activityIncrement /= ACTIVITY_DECAY;
+                conflictsLeft--;
+                continue;
+            }
+
+            if (conflictsLeft <= 0) {
+                backjump(0);
+                conflictsLeft = luby(++restarts) * RESTART_BASE;
+            }
+            if (placed > bestPlaced) notePartial();
+            if (board.shouldStop()) return false;
+
+            int v = nextVariable();
+            if (v < 0) return true;     // Everything assigned without a conflict
+
+            stats.node(decisionLevel);
+            stats.guess();
+            levelStart[decisionLevel++] = trailSize;
+            assign(2 * v, NO_REASON);
+        }
+    }
+
+    /**
+     * Analyse a conflict down to its first unique implication point, learn the clause that
+     * blocks it, jump back to where that clause becomes unit and assert it there
+     */
+    private void learn(int conflict) {
+        int length = 1;     // learnt[0] is kept for the asserting literal
+        int pending = 0;    // Literals of the current level still to resolve on
+        int index = trailSize - 1;
+        int lit = -1;
+        int ref = conflict;
+
+        do {
+            int clauseLength = arena[ref];
+            for (int k = lit < 0 ? 0 : 1; k < clauseLength; k++) {
+                int other = arena[ref + 1 + k];
+                int v = other >> 1;
+                if (seen[v] || level[v] == 0) continue;
+                seen[v] = true;
+                bump(v);
+                if (level[v] == decisionLevel) pending++;
+                else learnt[length++] = other;
+            }
+            while (!seen[trail[index] >> 1]) index--;
+            lit = trail[index--];
+            ref = reason[lit >> 1];
+            seen[lit >> 1] = false;
+            pending--;
+        } while (pending > 0);
+        learnt[0] = lit ^ 1;
+
+        // Drop literals whose reason lies entirely within the clause already
+        System.arraycopy(learnt, 1, analyzed, 0, length - 1);
+        int kept = 1;
+        for (int i = 1; i < length; i++) {
+            int v = learnt[i] >> 1;
+            if (reason[v] == NO_REASON || !impliedByClause(reason[v])) learnt[kept++] = learnt[i];
+        }
+        for (int i = 0; i < length - 1; i++) {
+            seen[analyzed[i] >> 1] = false;
+        }
+        length = kept;
+
+        // The highest remaining level is where the clause becomes unit; watch that literal second
+        int jumpLevel = 0;
+        for (int i = 1; i < length; i++) {
+            int lv = level[learnt[i] >> 1];
+            if (lv > jumpLevel) {
+                jumpLevel = lv;
+                int swap = learnt[1];
+                learnt[1] = learnt[i];
+                learnt[i] = swap;
+            }
+        }
+
+        backjump(jumpLevel);
+        if (length == 1) {
+            assign(learnt[0], NO_REASON);
+        } else {
+            assign(learnt[0], addClause(learnt, length));
+        }
+    }
+
+    private boolean impliedByClause(int ref) {
+        int length = arena[ref];
+        for (int k = 1; k < length; k++) {
+            int v = arena[ref + 1 + k] >> 1;
+            if (!seen[v] && level[v] > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Undo every assignment above a decision level
+     */
+    private void backjump(int target) {
+        if (decisionLevel <= target) return;
+        int stop = levelStart[target];
+        for (int i = trailSize - 1; i >= stop; i--) {
+            int lit = trail[i];
+            int v = lit >> 1;
+            value[lit] = UNDEF;
+            value[lit ^ 1] = UNDEF;
+            if ((lit & 1) == 0) placed--;
+            if (heapIndex[v] < 0) heapInsert(v);
+        }
+        trailSize = propagated = stop;
+        decisionLevel = target;
+    }
+
+    /**
+     * Most active unassigned variable, or -1 if all are assigned
+     */
+    private int nextVariable() {
+        while (heapSize > 0) {
+            int v = heapRemoveMax();
+            if (value[2 * v] == UNDEF) return v;
+        }
+        return -1;
+    }
+
+    private void bump(int v) {
+        if ((activity[v] += activityIncrement) > RESCALE_LIMIT) {
+            for (int u = 0; u < varCount; u++) activity[u] /= RESCALE_LIMIT;
+            activityIncrement /= RESCALE_LIMIT;
+        }
+        if (heapIndex[v] >= 0) siftUp(heapIndex[v]);
+    }
+
+    /**
+     * Hand the board the digits placed so far, for {@link Board#solveWithin}'s best partial
+     */
+    private void notePartial() {
+        bestPlaced = placed;
+        if (!board.isTrackingPartial()) return;
+        int[] rowOf = geometry.rowOf, colOf = geometry.colOf;
+        for (int i = 0; i < trailSize; i++) {
+            int lit = trail[i];
+            if ((lit & 1) == 0) board.writeCell(rowOf[varCell[lit >> 1]], colOf[varCell[lit >> 1]], varDigit[lit >> 1]);
+        }
+        board.notePartial();
+        for (int i = 0; i < trailSize; i++) {
+            int lit = trail[i];
+            if ((lit & 1) == 0) board.writeCell(rowOf[varCell[lit >> 1]], colOf[varCell[lit >> 1]], 0);
+        }
+    }
+
+    /**
+     * The Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...
+     */
+    static long luby(int i) {
+        int length = 1, exponent = 0;
+        while (length < i + 1) {
+            exponent++;
+            length = 2 * length + 1;
+        }
+        while (length - 1 != i) {
+            length = (length - 1) >> 1;
+            exponent--;
+            i %= length;
+        }
+        return 1L << exponent;
+    }
+
+    private void heapInsert(int v) {
+        heapIndex[v] = heapSize;
+        heap[heapSize++] = v;
+        siftUp(heapSize - 1);
+    }
+
+    private int heapRemoveMax() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapIndex[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int position) {
+        int v = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (activity[heap[parent]] >= activity[v]) break;
+            heap[position] = heap[parent];
+            heapIndex[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = v;
+        heapIndex[v] = position;
+    }
+
+    private void siftDown(int position) {
+        int v = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) child++;
+            if (activity[heap[child]] <= activity[v]) break;
+            heap[position] = heap[child];
+            heapIndex[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = v;
+        heapIndex[v] = position;
+    }
+}
@@ -0,0 +1,103 @@
+package com.dooku;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used map from a puzzle's canonical form (see {@link Canonicalizer}) to
+ * the solution of that canonical puzzle. A {@link Board} with a cache set looks every solve up
+ * first, and a hit is answered by carrying the cached solution back through the puzzle's own
+ * transform - so a puzzle that is just another one with its digits relabelled or its bands
+ * shuffled never gets searched twice. Puzzles found to have no solution are remembered too.
+ *
+ * Canonicalising costs about as much as the 9x9 kernel takes to solve an average puzzle, so the
+ * cache pays off for larger grids, slower engines, and workloads that really do repeat. One cache
+ * can be shared by any number of boards and threads.
+ */
+public class SolutionCache {
+
+    private static final int[] UNSOLVABLE = new int[0];
+
+    private final int capacity;
+    private final Map<String, int[]> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SolutionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+                if (size() <= SolutionCache.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return The canonical solution, an empty array if the puzzle is known to have none, or null
+     *         if it isn't cached
+     */
+    synchronized int[] get(Canonicalizer.Form form) {
+        int[] solution = entries.get(form.getKey());
+        if (solution == null) misses++;
+        else hits++;
+        return solution;
+    }
+
+    /**
+     * @param canonicalSolution The solution in the form's canonical coordinates, or null if the
+     *                          puzzle has none
+     */
+    synchronized void put(Canonicalizer.Form form, int[] canonicalSolution) {
+        entries.put(form.getKey(), canonicalSolution == null ? UNSOLVABLE : canonicalSolution);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Entries dropped to stay within capacity
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Drop every entry and zero the counters
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = misses = evictions = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%d hits, %d misses (%.1f%% hit rate), %d/%d entries, %d evicted",
+            hits, misses, getHitRate() * 100, entries.size(), capacity, evictions);
+    }
+}
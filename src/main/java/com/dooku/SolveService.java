@@ -0,0 +1,86 @@
+package com.dooku;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * Runs {@link Board#solve(Board.Engine)} on a background thread so the FX thread stays responsive.
+ *
+ * Cancelling the service asks the board to stop at its next search node; the search unwinds
+ * through its undo trail, so an aborted board holds exactly the givens it started with. A
+ * cancel that comes too late to stop the solve is dropped rather than left for the next one. A
+ * timeout is handed to the board as a deadline and ends the solve the same way.
+ *
+ * The task's value is whether the board ended up solved. While it runs, the task's message
+ * reports the search's node count and rate a few times a second.
+ */
+public class SolveService extends Service<Boolean> {
+
+    private final Board board;
+    private final Board.Engine engine;
+    private final long timeoutMillis;
+    private final StepChannel channel;
+
+    private static final long PROGRESS_MILLIS = 250;
+
+    /**
+     * @param board Board to solve in place
+     * @param engine Search engine to use
+     * @param timeoutMillis Give up after this long; 0 for no limit
+     * @param channel Channel to stream steps through, closed when the solve ends; null to keep them in observableState
+     */
+    public SolveService(Board board, Board.Engine engine, long timeoutMillis, StepChannel channel) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative");
+        }
+        this.board = board;
+        this.engine = engine;
+        this.timeoutMillis = timeoutMillis;
+        this.channel = channel;
+    }
+
+    @Override
+    protected Task<Boolean> createTask() {
+        return new Task<>() {
+            // cancelled() runs on the FX thread some time after the cancel, possibly once call() has
+            // returned; a cancel forwarded then would stop the board's next solve instead
+            private final Object lock = new Object();
+            private boolean solving = false;
+
+            @Override
+            protected Boolean call() {
+                board.setStepChannel(channel);
+                board.setDeadline(timeoutMillis == 0 ? 0 : System.nanoTime() + timeoutMillis * 1_000_000);
+                board.setProgressListener(stats -> updateMessage(String.format("%,d nodes, %,.0f nodes/sec",
+                    stats.getNodes(), stats.getNodesPerSecond())), PROGRESS_MILLIS);
+                synchronized (lock) {
+                    solving = true;
+                }
+                try {
+                    board.solve(engine);
+                } finally {
+                    synchronized (lock) {
+                        solving = false;
+                        board.withdrawCancel();     // One that arrived as the solve was finishing
+                    }
+                    board.setDeadline(0);
+                    board.setProgressListener(null, 0);
+                    if (channel != null) channel.close();
+                }
+                return board.isSolved();
+            }
+
+            @Override
+            protected void cancelled() {
+                synchronized (lock) {
+                    if (solving) board.cancel();
+                }
+                if (channel != null) channel.close();    // Task may be cancelled before call() ever runs
+            }
+        };
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+}
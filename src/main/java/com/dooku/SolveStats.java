@@ -0,0 +1,185 @@
+package com.dooku;
+
+import java.util.Locale;
+
+/**
+ * What the last solve (or solution count) of a {@link Board} did: search nodes, backtracks,
+ * deepest guess, how the placements were found, and where the time went. Reset at the start of
+ * every solve and updated live while it runs, so a {@link ProgressListener} can read it mid-search.
+ *
+ * Time is split into propagation (singles and the technique chain) and branching (everything
+ * else - choosing cells, guessing, undoing) by the generic backtracker only. The 9x9 kernel
+ * interleaves the two too finely to time, and dancing links has no propagation phase, so both
+ * report all their time as branching. A parallel solve counts the work of every branch, and a
+ * portfolio solve that of the winning racer; both report their elapsed time only.
+ */
+public class SolveStats {
+
+    /**
+     * Called on the solving thread at most once per interval while a solve runs, and once more
+     * when it ends. Keep it quick - the search waits for it
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(SolveStats stats);
+    }
+
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private long nakedSingles;
+    private long hiddenSingles;
+    private long guesses;
+    private long propagationNanos;
+    private long startNanos;
+    private long endNanos;
+    private boolean running;
+    private int peakSteps;
+    private long peakStepBytes;
+
+    void start() {
+        nodes = backtracks = nakedSingles = hiddenSingles = guesses = propagationNanos = 0;
+        maxDepth = 0;
+        peakSteps = 0;
+        peakStepBytes = 0;
+        running = true;
+        startNanos = endNanos = System.nanoTime();
+    }
+
+    /**
+     * The observableState log only grows during a solve, so its size at the end is its peak.
+     * Null for searches that record nothing
+     */
+    void finish(StepLog log) {
+        endNanos = System.nanoTime();
+        running = false;
+        if (log != null) {
+            peakSteps = log.size();
+            peakStepBytes = log.memoryBytes();
+        }
+    }
+
+    /**
+     * Add in the counts of a search run on a board copy. Its times are left out: they overlap ours
+     */
+    void add(SolveStats other) {
+        nodes += other.nodes;
+        backtracks += other.backtracks;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        nakedSingles += other.nakedSingles;
+        hiddenSingles += other.hiddenSingles;
+        guesses += other.guesses;
+    }
+
+    void node(int depth) {
+        nodes++;
+        if (depth > maxDepth) maxDepth = depth;
+    }
+
+    void backtrack() {
+        backtracks++;
+    }
+
+    void nakedSingle() {
+        nakedSingles++;
+    }
+
+    void hiddenSingle() {
+        hiddenSingles++;
+    }
+
+    void guess() {
+        guesses++;
+    }
+
+    void propagation(long nanos) {
+        propagationNanos += nanos;
+    }
+
+    /**
+     * Search nodes entered, the root included
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Guesses that led to a dead end and were taken back
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Most guesses stacked on top of each other at any point
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Cells placed because they had one candidate left
+     */
+    public long getNakedSingles() {
+        return nakedSingles;
+    }
+
+    /**
+     * Cells placed because a unit had one place left for a digit
+     */
+    public long getHiddenSingles() {
+        return hiddenSingles;
+    }
+
+    /**
+     * Cells placed by trying a value, right or wrong. Dancing links counts every row it tries
+     */
+    public long getGuesses() {
+        return guesses;
+    }
+
+    public long getPropagationNanos() {
+        return propagationNanos;
+    }
+
+    public long getBranchingNanos() {
+        return Math.max(0, getElapsedNanos() - propagationNanos);
+    }
+
+    /**
+     * Time since the solve started, or its total once it has finished
+     */
+    public long getElapsedNanos() {
+        return (running ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    public double getNodesPerSecond() {
+        long elapsed = getElapsedNanos();
+        return elapsed == 0 ? 0 : nodes * 1e9 / elapsed;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Steps observableState held when the solve ended; 0 when recording was off or steps went to
+     * a {@link StepChannel}
+     */
+    public int getPeakSteps() {
+        return peakSteps;
+    }
+
+    public long getPeakStepBytes() {
+        return peakStepBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "%d nodes (%.0f/s), %d backtracks, depth %d, singles %d naked / %d hidden, %d guesses, "
+                + "%.1f us propagating / %.1f us branching, %d steps (%d bytes)",
+            nodes, getNodesPerSecond(), backtracks, maxDepth, nakedSingles, hiddenSingles, guesses,
+            propagationNanos / 1e3, getBranchingNanos() / 1e3, peakSteps, peakStepBytes);
+    }
+}
@@ -0,0 +1,117 @@
+package com.dooku;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer/single-consumer ring buffer that streams solver steps to the UI while
+ * the solve is still running.
+ *
+ * Steps use the same packed-long format as {@link StepLog}. The solver thread publishes, the FX
+ * thread polls at animation rate, and neither side takes a lock. What happens when the buffer
+ * is full is up to the {@link OverflowPolicy}: either the solver waits for the UI to catch up,
+ * or the step is dropped so the solver keeps full speed and the UI only sees a sample of the
+ * search. Either way memory stays at the fixed capacity however large the search gets.
+ */
+public class StepChannel {
+
+    /**
+     * What the producer does when the buffer is full
+     */
+    public enum OverflowPolicy {
+        BLOCK,  // Backpressure - wait until the consumer frees a slot
+        SAMPLE  // Drop the step; the consumer only sees the steps that fit
+    }
+
+    /** Returned by {@link #poll()} when nothing is waiting. Never a valid packed step */
+    public static final long EMPTY = -1L;
+
+    private static final long PARK_NANOS = 100_000;
+
+    private final long[] buffer;
+    private final int mask;
+    private final OverflowPolicy policy;
+
+    private final AtomicLong head = new AtomicLong();   // Next slot to read, owned by the consumer
+    private final AtomicLong tail = new AtomicLong();   // Next slot to write, owned by the producer
+    private volatile boolean closed = false;
+    private volatile long dropped = 0;
+
+    /**
+     * @param capacity Maximum number of buffered steps, rounded up to a power of two
+     * @param policy What to do when the consumer falls behind
+     */
+    public StepChannel(int capacity, OverflowPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        int slots = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new long[slots];
+        this.mask = slots - 1;
+        this.policy = policy;
+    }
+
+    /**
+     * Producer side: hand over one packed step
+     *
+     * @return false if the step was dropped
+     */
+    public boolean publish(long step) {
+        long t = tail.get();
+        while (t - head.get() == buffer.length) {
+            if (policy == OverflowPolicy.SAMPLE || closed) {
+                dropped++;  // Only the producer writes this
+                return false;
+            }
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        buffer[(int) (t & mask)] = step;
+        tail.lazySet(t + 1);    // Publishes the slot write to the consumer
+        return true;
+    }
+
+    /**
+     * Consumer side: take the oldest step, or {@link #EMPTY} if none is waiting
+     */
+    public long poll() {
+        long h = head.get();
+        if (h == tail.get()) return EMPTY;
+        long step = buffer[(int) (h & mask)];
+        head.lazySet(h + 1);
+        return step;
+    }
+
+    /**
+     * Producer is done (or the consumer gave up); already buffered steps can still be polled,
+     * and a blocked producer is released
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closed and nothing left to poll - the consumer can finish
+     */
+    public boolean isDrained() {
+        return closed && head.get() == tail.get();
+    }
+
+    /**
+     * Steps discarded because the buffer was full (always 0 with {@link OverflowPolicy#BLOCK})
+     */
+    public long droppedCount() {
+        return dropped;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+}
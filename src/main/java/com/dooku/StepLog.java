@@ -0,0 +1,121 @@
+package com.dooku;
+
+import java.util.Arrays;
+
+/**
+ * Growable log of solver steps for the UI animation.
+ *
+ * Each step is packed into a single long - the value in the high word and the cell index
+ * (row * size + col) in the low word - so recording a step is one array store instead of a
+ * fresh int[] plus a linked-list node. A value of 0 means the cell was cleared (backtrack).
+ */
+public class StepLog {
+
+    public static final int BYTES_PER_STEP = Long.BYTES;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] steps;
+    private int size;
+
+    public StepLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StepLog(int initialCapacity) {
+        this.steps = new long[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Append a step
+     */
+    public void add(int cell, int value) {
+        if (size == steps.length) {
+            steps = Arrays.copyOf(steps, steps.length * 2);
+        }
+        steps[size++] = pack(cell, value);
+    }
+
+    public static long pack(int cell, int value) {
+        return ((long) value << 32) | (cell & 0xFFFFFFFFL);
+    }
+
+    public static int cellOf(long step) {
+        return (int) step;
+    }
+
+    public static int valueOf(long step) {
+        return (int) (step >>> 32);
+    }
+
+    /**
+     * Packed step at a position
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Step " + index + " of " + size);
+        }
+        return steps[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Forget all steps, keeping the allocated capacity for the next solve
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Bytes held by the backing array, including unused capacity
+     */
+    public long memoryBytes() {
+        return (long) steps.length * BYTES_PER_STEP;
+    }
+
+    /**
+     * Bytes actually spent per recorded step, counting the slack from growth
+     */
+    public double bytesPerStep() {
+        return size == 0 ? 0 : (double) memoryBytes() / size;
+    }
+
+    /**
+     * Forward cursor over the recorded steps, starting before the first one
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reads steps in order without boxing or per-step allocation:
+     * {@code while (cursor.next()) use(cursor.cell(), cursor.value());}
+     */
+    public class Cursor {
+        private int position = -1;
+
+        /**
+         * Advance to the next step, returning false once the log is exhausted
+         */
+        public boolean next() {
+            if (position + 1 >= size) return false;
+            position++;
+            return true;
+        }
+
+        public int cell() {
+            return cellOf(steps[position]);
+        }
+
+        public int value() {
+            return valueOf(steps[position]);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.dooku;
+
+/**
+ * Specialised search kernel for 9x9 boards, used by {@link Board} unless its search is being
+ * traced step by step.
+ *
+ * Each digit's candidates are an 81-bit bitboard split into three 27-bit band words (three rows
+ * of nine cells each), so a placement, a naked single scan or a hidden single scan is a handful
+ * of shifts and masks per band instead of loops over rows, columns and boxes. A search level's
+ * whole state is 30 ints (27 candidate words plus one unsolved-cells word per band); levels live
+ * side by side in one preallocated array, so going down a level is one arraycopy and backtracking
+ * is free. Nothing is allocated once the kernel exists.
+ *
+ * The kernel only reads the board's givens. Solutions are kept here until the board copies the
+ * first one back, so an unsolvable, cancelled or counting run leaves the board untouched.
+ */
+class Sudoku9 {
+
+    private static final int BAND = (1 << 27) - 1;
+    private static final int ROW = 0x1FF;
+    private static final int COLUMN = 1 | 1 << 9 | 1 << 18;    // A column's three cells in a band
+    private static final int STATE = 30;                        // Ints per search level
+    private static final int UNSOLVED = 27;                     // Offset of the unsolved words in a level
+
+    // Row and box peers of each band position, the position itself excluded
+    private static final int[] BAND_PEERS = new int[27];
+    // Each band position's column, as its three cells in a band
+    private static final int[] BAND_COLUMNS = new int[27];
+    // Band and band position of each cell of the grid
+    private static final int[] BAND_OF = new int[81];
+    private static final int[] POS_OF = new int[81];
+
+    static {
+        for (int pos = 0; pos < 27; pos++) {
+            int row = pos / 9, col = pos % 9, boxCol = col / 3 * 3;
+            int peers = ROW << (row * 9);
+            for (int r = 0; r < 3; r++) {
+                peers |= 7 << (r * 9 + boxCol);
+            }
+            BAND_PEERS[pos] = peers & ~(1 << pos);
+            BAND_COLUMNS[pos] = COLUMN << col;
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            BAND_OF[cell] = cell / 27;
+            POS_OF[cell] = cell % 27;
+        }
+    }
+
+    private final Board board;
+    private final SolveStats stats;     // The board's, counted into directly
+    private final int[] stack = new int[STATE * 82];    // Level 0 holds the givens, one more per guess
+    private final int[] solution = new int[81];
+    private int limit;
+    private int found;
+
+    Sudoku9(Board board) {
+        this.board = board;
+        this.stats = board.getSolveStats();
+    }
+
+    /**
+     * Search the board's current puzzle, stopping once limit solutions are found or the board
+     * asks to stop
+     *
+     * @return Number of solutions found; the first one is available from {@link #solutionAt}
+     */
+    int search(int limit) {
+        this.limit = limit;
+        this.found = 0;
+        if (!load()) return 0;
+        descend(0);
+        return found;
+    }
+
+    /**
+     * Digit of the first solution found at a cell (row * 9 + col)
+     */
+    int solutionAt(int cell) {
+        return solution[cell];
+    }
+
+    private boolean load() {
+        for (int i = 0; i < UNSOLVED; i++) stack[i] = BAND;
+        stack[UNSOLVED] = stack[UNSOLVED + 1] = stack[UNSOLVED + 2] = BAND;
+
+        Geometry geometry = board.geometry();
+        for (int cell = 0; cell < 81; cell++) {
+            int value = board.valueAt(geometry.rowOf[cell], geometry.colOf[cell]);
+            if (value == 0) continue;
+            int band = BAND_OF[cell], pos = POS_OF[cell];
+            if ((stack[(value - 1) * 3 + band] & 1 << pos) == 0) return false;
+            place(0, value - 1, band, pos);
+        }
+        return true;
+    }
+
+    /**
+     * @return true once the search should unwind - enough solutions, or stopped from outside
+     */
+    private boolean descend(int base) {
+        if (board.shouldStop()) return true;
+        stats.node(base / STATE);
+        if (!propagate(base)) return false;
+
+        int[] s = stack;
+        if ((s[base + UNSOLVED] | s[base + UNSOLVED + 1] | s[base + UNSOLVED + 2]) == 0) {
+            if (found++ == 0) saveSolution(base);
+            return found >= limit;
+        }
+
+        // Branch on a cell with the fewest candidates, preferring the first two-candidate cell
+        int bestBand = -1, bestPos = -1, bestCount = 10;
+        for (int band = 0; band < 3 && bestCount > 2; band++) {
+            int unsolved = s[base + UNSOLVED + band];
+            if (unsolved == 0) continue;
+            int ones = 0, twos = 0, threes = 0;
+            for (int d = 0; d < 9; d++) {
+                int c = s[base + d * 3 + band];
+                threes |= twos & c;
+                twos |= ones & c;
+                ones |= c;
+            }
+            int pairs = unsolved & twos & ~threes;
+            if (pairs != 0) {
+                bestBand = band;
+                bestPos = Integer.numberOfTrailingZeros(pairs);
+                bestCount = 2;
+            } else {
+                for (int rest = unsolved; rest != 0; rest &= rest - 1) {
+                    int pos = Integer.numberOfTrailingZeros(rest);
+                    int count = 0;
+                    for (int d = 0; d < 9; d++) count += s[base + d * 3 + band] >>> pos & 1;
+                    if (count < bestCount) {
+                        bestBand = band;
+                        bestPos = pos;
+                        bestCount = count;
+                    }
+                }
+            }
+        }
+
+        int next = base + STATE;
+        int cellBit = 1 << bestPos;
+        for (int d = 0; d < 9; d++) {
+            if ((s[base + d * 3 + bestBand] & cellBit) == 0) continue;
+            System.arraycopy(s, base, s, next, STATE);
+            place(next, d, bestBand, bestPos);
+            stats.guess();
+            if (descend(next)) return true;
+            stats.backtrack();
+        }
+        return false;
+    }
+
+    /**
+     * Place digit d at a band position: the cell drops every other digit, and the digit drops the
+     * cell's row, box and column peers
+     */
+    private void place(int base, int d, int band, int pos) {
+        int[] s = stack;
+        int cellBit = 1 << pos;
+        for (int e = band; e < UNSOLVED; e += 3) s[base + e] &= ~cellBit;
+
+        int own = base + d * 3;
+        s[own + band] = s[own + band] & ~BAND_PEERS[pos] | cellBit;
+        int column = BAND_COLUMNS[pos];
+        if (band != 0) s[own] &= ~column;
+        if (band != 1) s[own + 1] &= ~column;
+        if (band != 2) s[own + 2] &= ~column;
+        s[base + UNSOLVED + band] &= ~cellBit;
+    }
+
+    /**
+     * Place naked and hidden singles until none are left
+     *
+     * @return false if some cell or some unit ran out of places for a digit
+     */
+    private boolean propagate(int base) {
+        int[] s = stack;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+
+            // Naked singles - cells with exactly one digit left
+            for (int band = 0; band < 3; band++) {
+                int unsolved = s[base + UNSOLVED + band];
+                if (unsolved == 0) continue;
+                int ones = 0, twos = 0;
+                for (int d = 0; d < 9; d++) {
+                    int c = s[base + d * 3 + band];
+                    twos |= ones & c;
+                    ones |= c;
+                }
+                if ((unsolved & ~ones) != 0) return false;
+
+                for (int singles = unsolved & ~twos; singles != 0; singles &= singles - 1) {
+                    int pos = Integer.numberOfTrailingZeros(singles);
+                    int cellBit = 1 << pos;
+                    int d = 0;
+                    while (d < 9 && (s[base + d * 3 + band] & cellBit) == 0) d++;
+                    if (d == 9) return false;   // An earlier single in this band took its last digit
+                    place(base, d, band, pos);
+                    stats.nakedSingle();
+                    progress = true;
+                }
+            }
+            if (progress) continue;
+
+            // Hidden singles - a digit with one place left in a row, column or box
+            for (int d = 0; d < 9; d++) {
+                int own = base + d * 3;
+                if ((s[own] & s[base + UNSOLVED] | s[own + 1] & s[base + UNSOLVED + 1]
+                        | s[own + 2] & s[base + UNSOLVED + 2]) == 0) {
+                    // No open cell can take it, so it had better be placed nine times already
+                    if (Integer.bitCount(s[own]) + Integer.bitCount(s[own + 1]) + Integer.bitCount(s[own + 2]) != 9) {
+                        return false;
+                    }
+                    continue;
+                }
+                int found;
+                while ((found = hiddenSingle(base, own)) > 0) {
+                    int cell = found - 1;
+                    place(base, d, BAND_OF[cell], POS_OF[cell]);
+                    stats.hiddenSingle();
+                    progress = true;
+                }
+                if (found < 0) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Look for one hidden single of a digit
+     *
+     * @return band * 27 + pos + 1 of a cell that must take the digit, 0 if none, -1 if some unit
+     *         has no place left for it
+     */
+    private int hiddenSingle(int base, int own) {
+        int[] s = stack;
+        int colOnes = 0, colTwos = 0;
+        for (int band = 0; band < 3; band++) {
+            int v = s[own + band];
+            int unsolved = s[base + UNSOLVED + band];
+            int r0 = v & ROW, r1 = v >>> 9 & ROW, r2 = v >>> 18;
+
+            // Rows
+            if (r0 == 0 || r1 == 0 || r2 == 0) return -1;
+            int single = lone(r0) | lone(r1) << 9 | lone(r2) << 18;
+            single &= unsolved;
+            if (single != 0) return band * 27 + Integer.numberOfTrailingZeros(single) + 1;
+
+            // Boxes
+            for (int box = 0; box < 9; box += 3) {
+                int inBox = v & (7 | 7 << 9 | 7 << 18) << box;
+                if (inBox == 0) return -1;
+                if ((inBox & inBox - 1) == 0 && (inBox & unsolved) != 0) {
+                    return band * 27 + Integer.numberOfTrailingZeros(inBox) + 1;
+                }
+            }
+
+            // Columns are summed across the bands below
+            int ones = r0 | r1 | r2;
+            int twos = r0 & r1 | r0 & r2 | r1 & r2;
+            colTwos |= twos | colOnes & ones;
+            colOnes |= ones;
+        }
+        if (colOnes != ROW) return -1;
+
+        for (int cols = colOnes & ~colTwos; cols != 0; cols &= cols - 1) {
+            int column = COLUMN << Integer.numberOfTrailingZeros(cols);
+            for (int band = 0; band < 3; band++) {
+                int cell = s[own + band] & column;
+                if (cell != 0) {
+                    if ((cell & s[base + UNSOLVED + band]) != 0) {
+                        return band * 27 + Integer.numberOfTrailingZeros(cell) + 1;
+                    }
+                    break;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The row field itself if it has exactly one bit set, otherwise 0
+     */
+    private static int lone(int field) {
+        return (field & field - 1) == 0 ? field : 0;
+    }
+
+    private void saveSolution(int base) {
+        for (int band = 0; band < 3; band++) {
+            for (int d = 0; d < 9; d++) {
+                for (int bits = stack[base + d * 3 + band]; bits != 0; bits &= bits - 1) {
+                    int pos = Integer.numberOfTrailingZeros(bits);
+                    solution[band * 27 + pos] = d + 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.dooku;
+
+/**
+ * Logical deductions the backtracker can run before it guesses (see
+ * {@link Board#setTechniques(java.util.Set)}).
+ *
+ * Each one only removes candidates it can prove impossible, through {@link Board#eliminate}, so
+ * the removals land on the undo trail and vanish again when the search backs out. Constants are
+ * declared easiest first, in the order of {@link DifficultyGrader}'s ratings, which is the order
+ * the board tries them in.
+ */
+public enum Technique {
+
+    /** A digit confined to one row or column inside a box leaves the rest of that line */
+    POINTING_PAIR("Pointing pair") {
+        @Override
+        int apply(Board board) {
+            return lockedCandidates(board, true);
+        }
+    },
+
+    /** A digit confined to one box inside a row or column leaves the rest of that box */
+    BOX_LINE_REDUCTION("Box/line reduction") {
+        @Override
+        int apply(Board board) {
+            return lockedCandidates(board, false);
+        }
+    },
+
+    /** Two cells of a unit sharing the same two candidates */
+    NAKED_PAIR("Naked pair") {
+        @Override
+        int apply(Board board) {
+            return nakedSubsets(board, 2);
+        }
+    },
+
+    /** A digit whose places in two rows (or columns) cover just two columns (or rows) */
+    X_WING("X-Wing") {
+        @Override
+        int apply(Board board) {
+            return fish(board, 2);
+        }
+    },
+
+    /** Two digits that can only go in the same two cells of a unit */
+    HIDDEN_PAIR("Hidden pair") {
+        @Override
+        int apply(Board board) {
+            return hiddenSubsets(board, 2);
+        }
+    },
+
+    /** Three cells of a unit whose candidates come from the same three digits */
+    NAKED_TRIPLE("Naked triple") {
+        @Override
+        int apply(Board board) {
+            return nakedSubsets(board, 3);
+        }
+    },
+
+    /** The three-line version of the X-Wing */
+    SWORDFISH("Swordfish") {
+        @Override
+        int apply(Board board) {
+            return fish(board, 3);
+        }
+    },
+
+    /** Three digits that can only go in the same three cells of a unit */
+    HIDDEN_TRIPLE("Hidden triple") {
+        @Override
+        int apply(Board board) {
+            return hiddenSubsets(board, 3);
+        }
+    };
+
+    private final String displayName;
+
+    Technique(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Remove every candidate this technique can rule out on the board as it stands
+     *
+     * @return Number of candidates removed
+     */
+    abstract int apply(Board board);
+
+    // Units are numbered rows first (0..size-1), then columns, then boxes, as in Geometry
+
+    private static int cellOf(Geometry geometry, int unit, int k) {
+        return geometry.unitCells[unit * geometry.size + k];
+    }
+
+    private static long candidatesOf(Board board, int cell) {
+        Geometry geometry = board.geometry();
+        return board.getPossibilities(geometry.rowOf[cell], geometry.colOf[cell]);
+    }
+
+    private static int eliminate(Board board, int cell, long mask) {
+        Geometry geometry = board.geometry();
+        return board.eliminate(geometry.rowOf[cell], geometry.colOf[cell], mask);
+    }
+
+    /**
+     * Pointing (box to line) or claiming (line to box) for every digit
+     */
+    private static int lockedCandidates(Board board, boolean pointing) {
+        Geometry geometry = board.geometry();
+        int size = geometry.size;
+        int removed = 0;
+        int firstUnit = pointing ? 2 * size : 0, lastUnit = pointing ? 3 * size : 2 * size;
+        for (int unit = firstUnit; unit < lastUnit; unit++) {
+            for (int digit = 1; digit <= size; digit++) {
+                long bit = 1L << digit;
+                long places = board.positionsOf(unit, digit);
+                if ((places & (places - 1)) == 0) continue;    // Placed already, or a hidden single
+
+                long rows = 0, cols = 0, boxes = 0;
+                for (; places != 0; places &= places - 1) {
+                    int cell = cellOf(geometry, unit, Long.numberOfTrailingZeros(places));
+                    rows |= 1L << geometry.rowOf[cell];
+                    cols |= 1L << geometry.colOf[cell];
+                    boxes |= 1L << geometry.boxOf[cell];
+                }
+
+                if (pointing) {
+                    int box = unit - 2 * size;
+                    if (Long.bitCount(rows) == 1) {
+                        removed += clearOutside(board, Long.numberOfTrailingZeros(rows), 2 * size + box, bit);
+                    }
+                    if (Long.bitCount(cols) == 1) {
+                        removed += clearOutside(board, size + Long.numberOfTrailingZeros(cols), 2 * size + box, bit);
+                    }
+                } else if (Long.bitCount(boxes) == 1) {
+                    removed += clearOutside(board, 2 * size + Long.numberOfTrailingZeros(boxes), unit, bit);
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Eliminate a digit from the cells of one unit that are not also in another
+     */
+    private static int clearOutside(Board board, int unit, int keep, long bit) {
+        Geometry geometry = board.geometry();
+        int size = geometry.size, keepKind = keep / size;
+        int removed = 0;
+        for (int k = 0; k < size; k++) {
+            int cell = cellOf(geometry, unit, k);
+            if (geometry.unitOf(cell, keepKind) != keep) removed += eliminate(board, cell, bit);
+        }
+        return removed;
+    }
+
+    /**
+     * k cells of a unit whose candidates together hold just k digits: those digits go in those
+     * cells, so the rest of the unit loses them
+     */
+    private static int nakedSubsets(Board board, int k) {
+        Geometry geometry = board.geometry();
+        int size = geometry.size;
+        int[] cells = new int[size];
+        long[] masks = new long[size];
+        int removed = 0;
+        for (int unit = 0; unit < 3 * size; unit++) {
+            int count = 0, open = 0;
+            for (int i = 0; i < size; i++) {
+                int cell = cellOf(geometry, unit, i);
+                long mask = candidatesOf(board, cell);
+                if (mask == 0) continue;
+                open++;
+                if (Long.bitCount(mask) <= k) {
+                    cells[count] = cell;
+                    masks[count++] = mask;
+                }
+            }
+            if (open <= k) continue;    // Nothing left outside the subset
+
+            for (int a = 0; a < count; a++) {
+                for (int b = a + 1; b < count; b++) {
+                    long ab = masks[a] | masks[b];
+                    if (k == 2) {
+                        if (Long.bitCount(ab) == 2) {
+                            removed += clearUnitExcept(board, unit, ab, cells[a], cells[b], -1);
+                        }
+                        continue;
+                    }
+                    if (Long.bitCount(ab) > 3) continue;
+                    for (int c = b + 1; c < count; c++) {
+                        long abc = ab | masks[c];
+                        if (Long.bitCount(abc) == 3) {
+                            removed += clearUnitExcept(board, unit, abc, cells[a], cells[b], cells[c]);
+                        }
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static int clearUnitExcept(Board board, int unit, long mask, int a, int b, int c) {
+        Geometry geometry = board.geometry();
+        int removed = 0;
+        for (int i = 0; i < geometry.size; i++) {
+            int cell = cellOf(geometry, unit, i);
+            if (cell != a && cell != b && cell != c) removed += eliminate(board, cell, mask);
+        }
+        return removed;
+    }
+
+    /**
+     * k digits whose places in a unit are the same k cells: those cells hold those digits, so
+     * they lose every other candidate
+     */
+    private static int hiddenSubsets(Board board, int k) {
+        int size = board.getSize();
+        long all = (1L << (size + 1)) - 2;
+        long[] positions = new long[size + 1];    // Per digit, bit i = the unit's i-th cell can take it
+        int[] digits = new int[size];
+        int removed = 0;
+        for (int unit = 0; unit < 3 * size; unit++) {
+            int count = 0;
+            for (int digit = 1; digit <= size; digit++) {
+                positions[digit] = board.positionsOf(unit, digit);
+                int places = Long.bitCount(positions[digit]);
+                if (places >= 2 && places <= k) digits[count++] = digit;
+            }
+
+            for (int a = 0; a < count; a++) {
+                for (int b = a + 1; b < count; b++) {
+                    long ab = positions[digits[a]] | positions[digits[b]];
+                    long abDigits = 1L << digits[a] | 1L << digits[b];
+                    if (k == 2) {
+                        if (Long.bitCount(ab) == 2) removed += keepOnly(board, unit, ab, abDigits, all);
+                        continue;
+                    }
+                    if (Long.bitCount(ab) > 3) continue;
+                    for (int c = b + 1; c < count; c++) {
+                        long abc = ab | positions[digits[c]];
+                        if (Long.bitCount(abc) == 3) {
+                            removed += keepOnly(board, unit, abc, abDigits | 1L << digits[c], all);
+                        }
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static int keepOnly(Board board, int unit, long places, long digitMask, long all) {
+        Geometry geometry = board.geometry();
+        int removed = 0;
+        for (long rest = places; rest != 0; rest &= rest - 1) {
+            int cell = cellOf(geometry, unit, Long.numberOfTrailingZeros(rest));
+            removed += eliminate(board, cell, all & ~digitMask);
+        }
+        return removed;
+    }
+
+    /**
+     * Basic fish of size k, both ways round: k rows whose places for a digit fall in just k
+     * columns claim the digit for those columns, so the other rows lose it there (and likewise
+     * with rows and columns swapped)
+     */
+    private static int fish(Board board, int k) {
+        int size = board.getSize();
+        long[] lines = new long[size];  // Per base line, bit i = the digit can go at cross line i
+        int[] base = new int[size];
+        int removed = 0;
+        for (int digit = 1; digit <= size; digit++) {
+            long bit = 1L << digit;
+            for (int byColumn = 0; byColumn < 2; byColumn++) {
+                int count = 0;
+                for (int line = 0; line < size; line++) {
+                    long places = board.positionsOf(byColumn * size + line, digit);
+                    lines[line] = places;
+                    int c = Long.bitCount(places);
+                    if (c >= 2 && c <= k) base[count++] = line;
+                }
+
+                for (int a = 0; a < count; a++) {
+                    for (int b = a + 1; b < count; b++) {
+                        long ab = lines[base[a]] | lines[base[b]];
+                        if (k == 2) {
+                            if (Long.bitCount(ab) == 2) {
+                                removed += clearCrossLines(board, byColumn == 1, ab, bit, base[a], base[b], -1);
+                            }
+                            continue;
+                        }
+                        if (Long.bitCount(ab) > 3) continue;
+                        for (int c = b + 1; c < count; c++) {
+                            long abc = ab | lines[base[c]];
+                            if (Long.bitCount(abc) == 3) {
+                                removed += clearCrossLines(board, byColumn == 1, abc, bit, base[a], base[b], base[c]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static int clearCrossLines(Board board, boolean byColumn, long cross, long bit, int a, int b, int c) {
+        int size = board.getSize();
+        int removed = 0;
+        for (long rest = cross; rest != 0; rest &= rest - 1) {
+            int i = Long.numberOfTrailingZeros(rest);
+            for (int line = 0; line < size; line++) {
+                if (line == a || line == b || line == c) continue;
+                int cell = byColumn ? i * size + line : line * size + i;
+                removed += eliminate(board, cell, bit);
+            }
+        }
+        return removed;
+    }
+}
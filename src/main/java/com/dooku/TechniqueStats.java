@@ -0,0 +1,64 @@
+package com.dooku;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Per-technique counters for the chain a {@link Board} runs before guessing: how often each
+ * technique ran, how often it actually removed something, how many candidates it removed and the
+ * time spent in it. Reset at the start of every solve.
+ */
+public class TechniqueStats {
+
+    private final long[] runs = new long[Technique.values().length];
+    private final long[] fires = new long[runs.length];
+    private final long[] eliminations = new long[runs.length];
+    private final long[] nanos = new long[runs.length];
+
+    void record(Technique technique, int removed, long elapsedNanos) {
+        int i = technique.ordinal();
+        runs[i]++;
+        if (removed > 0) fires[i]++;
+        eliminations[i] += removed;
+        nanos[i] += elapsedNanos;
+    }
+
+    void reset() {
+        Arrays.fill(runs, 0);
+        Arrays.fill(fires, 0);
+        Arrays.fill(eliminations, 0);
+        Arrays.fill(nanos, 0);
+    }
+
+    public long getRuns(Technique technique) {
+        return runs[technique.ordinal()];
+    }
+
+    /**
+     * Runs that removed at least one candidate
+     */
+    public long getFires(Technique technique) {
+        return fires[technique.ordinal()];
+    }
+
+    public long getEliminations(Technique technique) {
+        return eliminations[technique.ordinal()];
+    }
+
+    public long getNanos(Technique technique) {
+        return nanos[technique.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+            "%-20s %8s %8s %12s %10s%n", "technique", "runs", "fires", "eliminated", "time us"));
+        for (Technique technique : Technique.values()) {
+            int i = technique.ordinal();
+            if (runs[i] == 0) continue;
+            table.append(String.format(Locale.ROOT, "%-20s %8d %8d %12d %10.1f%n",
+                technique.getDisplayName(), runs[i], fires[i], eliminations[i], nanos[i] / 1e3));
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,461 @@
+package com.dooku.batch;
+
+import com.dooku.Board;
+import com.dooku.DifficultyGrader;
+import com.dooku.PortfolioSolver;
+import com.dooku.SolutionCache;
+import com.dooku.Technique;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless entry point for solving large puzzle files offline.
+ *
+ * Reads one puzzle per line (see {@link PuzzleFormat}; blank lines and lines starting with '#'
+ * are skipped), solves them on a fixed thread pool where every thread reuses its own
+ * {@link Board}, and writes one line per puzzle to the output in input order: the solution, or
+ * "unsolvable" / "invalid". The input is memory-mapped by {@link MappedPuzzleReader} and each
+ * worker parses its line-aligned chunk straight from the mapped bytes. Only a few chunks per
+ * thread are in flight at once, so memory stays flat however big the file is. Throughput, search
+ * nodes per second and p50/p99 latency are printed at the end; with {@code --progress N} a running
+ * tally goes to stderr every N seconds as well.
+ *
+ * With {@code --cache N} the workers share a {@link SolutionCache} of N entries, so puzzles that are
+ * relabelled or reshuffled copies of earlier ones are answered without searching; its hit rate is
+ * part of the final report.
+ *
+ * With {@code --time-limit MS} and/or {@code --node-limit N} every puzzle gets that budget (see
+ * {@link Board#solveWithin}); one that runs out of it is written as "unfinished " followed by the
+ * fullest grid its search reached, in the puzzle format, so slow puzzles can't hold up a run.
+ *
+ * With {@code --portfolio N} each puzzle is raced by the first N of
+ * {@link PortfolioSolver#defaultStrategies} instead of one engine (so N threads per worker; pair it
+ * with a low {@code --threads}). The report then says how many races each strategy won. Budgets
+ * still apply, but an unfinished puzzle is written back with just its givens.
+ *
+ * With {@code --grade} each puzzle is rated by {@link DifficultyGrader} instead, and its line reads
+ * "rating tier hardest-technique guesses" (e.g. "3.4 HARD HIDDEN_PAIR 0"), ready to sort on.
+ *
+ * Only {@code com.dooku.Board} and its solver classes are touched, so no JavaFX or OpenCV class
+ * is ever loaded. Run it straight off the class path:
+ *
+ * <pre>
+ * java -cp target/classes com.dooku.batch.BatchSolver puzzles.txt solutions.txt --threads 8 --engine DANCING_LINKS --progress 5
+ * </pre>
+ */
+public class BatchSolver {
+
+    static final String UNSOLVABLE = "unsolvable";
+    static final String INVALID = "invalid";
+    static final String UNFINISHED = "unfinished ";
+    private static final byte[] UNSOLVABLE_BYTES = (UNSOLVABLE + "\n").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INVALID_BYTES = (INVALID + "\n").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UNFINISHED_BYTES = UNFINISHED.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] TIER_BYTES = new byte[DifficultyGrader.Tier.values().length][];
+    private static final byte[][] TECHNIQUE_BYTES = new byte[Technique.values().length][];
+    private static final byte[] SINGLES_BYTES = "SINGLES".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (DifficultyGrader.Tier tier : DifficultyGrader.Tier.values()) {
+            TIER_BYTES[tier.ordinal()] = tier.name().getBytes(StandardCharsets.US_ASCII);
+        }
+        for (Technique technique : Technique.values()) {
+            TECHNIQUE_BYTES[technique.ordinal()] = technique.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static final int BATCHES_PER_THREAD = 4;
+
+    /**
+     * Settings for one run
+     */
+    public static class Options {
+        public Path input;
+        public Path output;
+        public int threads = Runtime.getRuntime().availableProcessors();
+        public Board.Engine engine = Board.Engine.BACKTRACKING;
+        public int chunkBytes = 1 << 20;   // Input handed to a worker at a time
+        public int progressSeconds = 0;    // How often to report progress on stderr; 0 for never
+        public boolean grade = false;      // Write difficulty grades instead of solutions; the engine is ignored
+        public int cacheSize = 0;          // Entries in the shared solution cache; 0 for none
+        public long timeLimitMillis = 0;   // Budget per puzzle; 0 for none
+        public long nodeLimit = 0;         // Search nodes per puzzle; 0 for none
+        public int portfolio = 0;          // Strategies raced per puzzle; 0 to use the engine alone
+    }
+
+    /**
+     * Totals and latency distribution of a finished run
+     */
+    public static class Report {
+        long solved, unsolvable, invalid, unfinished;
+        long nodes;
+        long elapsedNanos;
+        long[] latencies = new long[0];  // Per puzzle, sorted once the run is over
+        SolutionCache cache;
+        PortfolioSolver portfolio;
+
+        public long getSolved() { return solved; }
+        public long getUnsolvable() { return unsolvable; }
+        public long getInvalid() { return invalid; }
+        public long getUnfinished() { return unfinished; }
+        public long getTotal() { return solved + unsolvable + invalid + unfinished; }
+
+        /**
+         * Search nodes visited over all puzzles (see {@link com.dooku.SolveStats#getNodes()})
+         */
+        public long getNodes() { return nodes; }
+
+        /**
+         * The run's solution cache, or null if it had none
+         */
+        public SolutionCache getCache() { return cache; }
+
+        /**
+         * The run's portfolio with its win counts, or null if puzzles weren't raced
+         */
+        public PortfolioSolver getPortfolio() { return portfolio; }
+
+        public double puzzlesPerSecond() {
+            return elapsedNanos == 0 ? 0 : getTotal() * 1e9 / elapsedNanos;
+        }
+
+        public double nodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Latency in nanoseconds at a percentile (0-100) of the valid puzzles
+         */
+        public long percentile(double p) {
+            if (latencies.length == 0) return 0;
+            int index = (int) Math.ceil(p / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+        }
+
+        @Override
+        public String toString() {
+            String summary = String.format(Locale.ROOT,
+                "%d puzzles (%d solved, %d unsolvable, %d unfinished, %d invalid) in %.2f s: %.0f puzzles/sec, %.0f nodes/sec, p50 %.1f us, p99 %.1f us",
+                getTotal(), solved, unsolvable, unfinished, invalid, elapsedNanos / 1e9, puzzlesPerSecond(), nodesPerSecond(),
+                percentile(50) / 1e3, percentile(99) / 1e3);
+            if (cache != null) summary += "; cache " + cache;
+            return portfolio == null ? summary : summary + "; portfolio " + portfolio;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options;
+        try {
+            options = parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchSolver <input> <output> [--threads N] [--engine BACKTRACKING|DANCING_LINKS|SAT] [--progress SECONDS] [--cache ENTRIES] [--time-limit MS] [--node-limit N] [--portfolio N] [--grade]");
+            System.exit(2);
+            return;
+        }
+        System.out.println(run(options));
+    }
+
+    static Options parseArgs(String[] args) {
+        Options options = new Options();
+        int positional = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    options.threads = Integer.parseInt(value(args, ++i));
+                    if (options.threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+                    break;
+                case "--engine":
+                    options.engine = Board.Engine.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "--cache":
+                    options.cacheSize = Integer.parseInt(value(args, ++i));
+                    if (options.cacheSize < 0) throw new IllegalArgumentException("--cache must not be negative");
+                    break;
+                case "--time-limit":
+                    options.timeLimitMillis = Long.parseLong(value(args, ++i));
+                    if (options.timeLimitMillis < 0) throw new IllegalArgumentException("--time-limit must not be negative");
+                    break;
+                case "--node-limit":
+                    options.nodeLimit = Long.parseLong(value(args, ++i));
+                    if (options.nodeLimit < 0) throw new IllegalArgumentException("--node-limit must not be negative");
+                    break;
+                case "--portfolio":
+                    options.portfolio = Integer.parseInt(value(args, ++i));
+                    if (options.portfolio < 0) throw new IllegalArgumentException("--portfolio must not be negative");
+                    break;
+                case "--grade":
+                    options.grade = true;
+                    break;
+                case "--progress":
+                    options.progressSeconds = Integer.parseInt(value(args, ++i));
+                    if (options.progressSeconds < 0) throw new IllegalArgumentException("--progress must not be negative");
+                    break;
+                default:
+                    if (positional == 0) options.input = Paths.get(args[i]);
+                    else if (positional == 1) options.output = Paths.get(args[i]);
+                    else throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                    positional++;
+            }
+        }
+        if (positional < 2) throw new IllegalArgumentException("Input and output files are required");
+        return options;
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    /**
+     * Solve every puzzle in the input file and write the results
+     */
+    public static Report run(Options options) throws IOException, InterruptedException {
+        Report report = new Report();
+        report.cache = options.cacheSize > 0 ? new SolutionCache(options.cacheSize) : null;
+        report.portfolio = options.portfolio > 0 ? new PortfolioSolver(PortfolioSolver.defaultStrategies(options.portfolio)) : null;
+        LatencyLog latencies = new LatencyLog();
+        ExecutorService pool = Executors.newFixedThreadPool(options.threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadLocal<Board[]> boards = ThreadLocal.withInitial(() -> new Board[PuzzleFormat.MAX_SIZE + 1]);
+
+        long start = System.nanoTime();
+        long progressNanos = options.progressSeconds * 1_000_000_000L;
+        long nextProgress = start + progressNanos;
+        try (MappedPuzzleReader in = new MappedPuzzleReader(options.input);
+             OutputStream out = Files.newOutputStream(options.output)) {
+
+            Deque<Future<Batch>> inFlight = new ArrayDeque<>();
+            int maxInFlight = options.threads * BATCHES_PER_THREAD;
+            for (MappedPuzzleReader.Chunk chunk : in.chunks(options.chunkBytes)) {
+                inFlight.add(pool.submit(() -> new Batch(chunk).solve(boards.get(), options, report.cache, report.portfolio)));
+                if (inFlight.size() >= maxInFlight) {
+                    write(await(inFlight.poll()), out, report, latencies);
+                }
+                nextProgress = progress(report, start, nextProgress, progressNanos);
+            }
+            while (!inFlight.isEmpty()) {
+                write(await(inFlight.poll()), out, report, latencies);
+                nextProgress = progress(report, start, nextProgress, progressNanos);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        report.latencies = latencies.sorted();
+        return report;
+    }
+
+    /**
+     * Print a running tally of the batches written so far to stderr if it is due
+     *
+     * @return When the next one is due
+     */
+    private static long progress(Report report, long start, long due, long intervalNanos) {
+        long now = System.nanoTime();
+        if (intervalNanos == 0 || now - due < 0) return due;
+        double seconds = (now - start) / 1e9;
+        System.err.printf(Locale.ROOT, "%d puzzles in %.0f s: %.0f puzzles/sec, %.0f nodes/sec%n",
+            report.getTotal(), seconds, report.getTotal() / seconds, report.nodes / seconds);
+        return now + intervalNanos;
+    }
+
+    private static Batch await(Future<Batch> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IllegalStateException("Solver thread failed", e.getCause());
+        }
+    }
+
+    private static void write(Batch batch, OutputStream out, Report report, LatencyLog latencies) throws IOException {
+        out.write(batch.output, 0, batch.outputSize);
+        report.solved += batch.solved;
+        report.unsolvable += batch.unsolvable;
+        report.invalid += batch.invalid;
+        report.unfinished += batch.unfinished;
+        report.nodes += batch.nodes;
+        for (int i = 0; i < batch.timed; i++) {
+            latencies.add(batch.nanos[i]);
+        }
+    }
+
+    /**
+     * One chunk of the input solved by one worker, with its output bytes ready to append
+     */
+    private static class Batch {
+        final MappedPuzzleReader.Chunk chunk;
+        byte[] output;
+        int outputSize = 0;
+        long[] nanos = new long[64];
+        int timed = 0;
+        long solved, unsolvable, invalid, unfinished;
+        long nodes;
+
+        Batch(MappedPuzzleReader.Chunk chunk) {
+            this.chunk = chunk;
+            this.output = new byte[chunk.length() + 16];  // Solutions are as long as their puzzles
+        }
+
+        Batch solve(Board[] boards, Options options, SolutionCache cache, PortfolioSolver portfolio) throws IOException {
+            chunk.forEachLine((bytes, offset, length) -> {
+                long start = System.nanoTime();
+                Board board = loadPuzzle(bytes, offset, length, boards);
+                DifficultyGrader.Grade grade = null;
+                if (board != null) {
+                    if (options.grade) {
+                        grade = DifficultyGrader.grade(board);
+                    } else {
+                        board.setSolutionCache(cache);
+                        if (portfolio != null) {
+                            board.setDeadline(options.timeLimitMillis > 0 ? start + options.timeLimitMillis * 1_000_000 : 0);
+                            board.setNodeLimit(options.nodeLimit);
+                            board.solvePortfolio(portfolio);
+                        } else if (options.timeLimitMillis > 0 || options.nodeLimit > 0) {
+                            board.solveWithin(options.engine, options.timeLimitMillis, options.nodeLimit);
+                        } else {
+                            board.solve(options.engine);
+                        }
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+
+                if (board == null) {
+                    invalid++;
+                    append(INVALID_BYTES);
+                    return;
+                }
+                nodes += board.getSolveStats().getNodes();
+                if (grade != null) {
+                    solved++;
+                    appendGrade(grade);
+                } else if (board.isSolved()) {
+                    solved++;
+                    ensureCapacity(length + 1);
+                    outputSize = PuzzleFormat.format(board, output, outputSize);
+                    output[outputSize++] = '\n';
+                } else if (board.getStatus() == Board.Status.BUDGET_EXHAUSTED) {
+                    unfinished++;
+                    ensureCapacity(UNFINISHED_BYTES.length + length + 1);
+                    appendBytes(UNFINISHED_BYTES);
+                    if (portfolio != null) {
+                        outputSize = PuzzleFormat.format(board, output, outputSize);  // Back to its givens
+                    } else {
+                        for (int value : board.getBestPartial()) {
+                            output[outputSize++] = (byte) PuzzleFormat.charOf(value);
+                        }
+                    }
+                    output[outputSize++] = '\n';
+                } else {
+                    unsolvable++;
+                    append(UNSOLVABLE_BYTES);
+                }
+                if (timed == nanos.length) nanos = Arrays.copyOf(nanos, timed * 2);
+                nanos[timed++] = elapsed;
+            });
+            return this;
+        }
+
+        private void append(byte[] line) {
+            ensureCapacity(line.length);
+            System.arraycopy(line, 0, output, outputSize, line.length);
+            outputSize += line.length;
+        }
+
+        /**
+         * "rating tier hardest guesses" - written byte by byte, since a String.format per puzzle
+         * would cost more than grading an easy one
+         */
+        private void appendGrade(DifficultyGrader.Grade grade) {
+            Technique hardest = grade.getHardest();
+            ensureCapacity(64);
+            long tenths = Math.round(grade.getRating() * 10);
+            appendNumber(tenths / 10);
+            output[outputSize++] = '.';
+            output[outputSize++] = (byte) ('0' + tenths % 10);
+            output[outputSize++] = ' ';
+            appendBytes(TIER_BYTES[grade.getTier().ordinal()]);
+            output[outputSize++] = ' ';
+            appendBytes(hardest == null ? SINGLES_BYTES : TECHNIQUE_BYTES[hardest.ordinal()]);
+            output[outputSize++] = ' ';
+            appendNumber(grade.getGuesses());
+            output[outputSize++] = '\n';
+        }
+
+        private void appendBytes(byte[] bytes) {
+            System.arraycopy(bytes, 0, output, outputSize, bytes.length);
+            outputSize += bytes.length;
+        }
+
+        private void appendNumber(long value) {
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) digits++;
+            for (int i = digits - 1; i >= 0; i--, value /= 10) {
+                output[outputSize + i] = (byte) ('0' + value % 10);
+            }
+            outputSize += digits;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (outputSize + extra > output.length) {
+                output = Arrays.copyOf(output, Math.max(output.length * 2, outputSize + extra));
+            }
+        }
+    }
+
+    /**
+     * Parse one puzzle onto the calling thread's board for that size
+     *
+     * @return The board, or null if the line isn't a valid puzzle
+     */
+    static Board loadPuzzle(ByteBuffer bytes, int offset, int length, Board[] boards) {
+        int size = PuzzleFormat.sizeForLength(length);
+        if (size < 0) return null;
+
+        Board board = boards[size];
+        if (board == null) {
+            board = boards[size] = new Board((int) Math.round(Math.sqrt(size)));
+            board.setRecording(false);  // Nobody animates a batch run
+        } else {
+            board.clear();
+        }
+        return PuzzleFormat.load(board, bytes, offset, length) ? board : null;
+    }
+
+    /**
+     * Append-only list of latencies, kept as primitives
+     */
+    private static class LatencyLog {
+        private long[] values = new long[1024];
+        private int size = 0;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
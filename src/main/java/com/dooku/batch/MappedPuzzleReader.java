@@ -0,0 +1,148 @@
+package com.dooku.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a puzzle file through memory-mapped regions instead of a character stream.
+ *
+ * The file is cut into {@link Chunk}s that each end on a line break, so workers can take a chunk
+ * each and never see half a puzzle. A chunk maps only its own byte range when it is visited, which
+ * keeps multi-gigabyte files well clear of the 2 GB limit on a single mapping. Lines are handed out
+ * as offsets into the mapped buffer; nothing is decoded into Strings or copied into arrays, and
+ * {@link PuzzleFormat#load(com.dooku.Board, ByteBuffer, int, int)} parses them straight onto a board.
+ */
+public class MappedPuzzleReader implements Closeable {
+
+    /**
+     * Receives one puzzle line; the bytes are only valid for the duration of the call
+     */
+    @FunctionalInterface
+    public interface LineVisitor {
+        void visit(ByteBuffer bytes, int offset, int length);
+    }
+
+    private static final int SCAN_BYTES = 4096;
+
+    private final FileChannel channel;
+    private final long fileSize;
+
+    public MappedPuzzleReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+    }
+
+    public long size() {
+        return fileSize;
+    }
+
+    /**
+     * Split the file into chunks of roughly targetBytes, each extended to the end of its last line
+     */
+    public List<Chunk> chunks(int targetBytes) throws IOException {
+        if (targetBytes < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1 byte");
+        }
+        List<Chunk> chunks = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, fileSize / targetBytes + 1));
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BYTES);
+        long start = 0;
+        while (start < fileSize) {
+            long end = start + targetBytes >= fileSize ? fileSize : lineEnd(start + targetBytes - 1, scan);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line starting near byte " + start + " is too long to map");
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Split the file into at most parts chunks of about equal size
+     */
+    public List<Chunk> split(int parts) throws IOException {
+        if (parts < 1) {
+            throw new IllegalArgumentException("Need at least one part");
+        }
+        return chunks((int) Math.min(Integer.MAX_VALUE, Math.max(1, (fileSize + parts - 1) / parts)));
+    }
+
+    /**
+     * Offset just past the first line break at or after position, or the file size if there is none
+     */
+    private long lineEnd(long position, ByteBuffer scan) throws IOException {
+        while (position < fileSize) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return fileSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A line-aligned byte range of the file
+     */
+    public class Chunk {
+        private final long start;
+        private final long end;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long start() {
+            return start;
+        }
+
+        public long end() {
+            return end;
+        }
+
+        public int length() {
+            return (int) (end - start);
+        }
+
+        public MappedByteBuffer map() throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        }
+
+        /**
+         * Map the chunk and visit every puzzle line in order. Surrounding whitespace (including the
+         * '\r' of CRLF files) is trimmed, and blank lines and lines starting with '#' are skipped
+         */
+        public void forEachLine(LineVisitor visitor) throws IOException {
+            MappedByteBuffer bytes = map();
+            int limit = bytes.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && bytes.get(lineEnd) != '\n') lineEnd++;
+
+                int from = lineStart, to = lineEnd;
+                while (from < to && (bytes.get(from) & 0xFF) <= ' ') from++;
+                while (to > from && (bytes.get(to - 1) & 0xFF) <= ' ') to--;
+                if (from < to && bytes.get(from) != '#') {
+                    visitor.visit(bytes, from, to - from);
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dooku.batch;
+
+import com.dooku.Board;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One-line puzzle format used by the batch tools.
+ *
+ * A puzzle is a single line of size * size characters in row-major order: 81 for 9x9, 16 for 4x4,
+ * 256 for 16x16, 625 for 25x25. '.' or '0' is an empty cell, '1'-'9' are 1-9 and 'A'-'Z'
+ * (either case) continue from 10, so 'G' is 16 and 'P' is 25.
+ */
+public final class PuzzleFormat {
+
+    /** Largest grid the character set can spell out */
+    public static final int MAX_SIZE = 35;
+
+    private PuzzleFormat() {
+    }
+
+    /**
+     * Grid side length for a line of this many characters, or -1 if it isn't a square of a square
+     */
+    public static int sizeForLength(int length) {
+        int size = (int) Math.round(Math.sqrt(length));
+        int n = (int) Math.round(Math.sqrt(size));
+        if (size * size != length || n * n != size || n < 2 || size > MAX_SIZE) return -1;
+        return size;
+    }
+
+    /**
+     * Cell value for a character: 0 for empty, -1 if it isn't part of the format
+     */
+    public static int valueOf(int ch) {
+        if (ch == '.' || ch == '0') return 0;
+        if (ch >= '1' && ch <= '9') return ch - '0';
+        if (ch >= 'A' && ch <= 'Z') return ch - 'A' + 10;
+        if (ch >= 'a' && ch <= 'z') return ch - 'a' + 10;
+        return -1;
+    }
+
+    /**
+     * Character for a cell value (0 is written as '.')
+     */
+    public static char charOf(int value) {
+        if (value == 0) return '.';
+        return (char) (value < 10 ? '0' + value : 'A' + value - 10);
+    }
+
+    /**
+     * Place the clues of a line on an empty board of the matching size
+     *
+     * @return false if the line has a character outside the format, a value too big for the grid,
+     *         or clues that clash with each other
+     */
+    public static boolean load(Board board, CharSequence line) {
+        int size = board.getSize();
+        if (line.length() != size * size) return false;
+        for (int idx = 0; idx < size * size; idx++) {
+            int value = valueOf(line.charAt(idx));
+            if (value < 0 || value > size) return false;
+            if (value != 0 && !board.placeDigit(idx / size, idx % size, value)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link #load(Board, CharSequence)} for a line held as ASCII bytes, read with
+     * absolute gets so the buffer's position is left alone
+     */
+    public static boolean load(Board board, ByteBuffer bytes, int offset, int length) {
+        int size = board.getSize();
+        if (length != size * size) return false;
+        for (int idx = 0; idx < length; idx++) {
+            int value = valueOf(bytes.get(offset + idx));
+            if (value < 0 || value > size) return false;
+            if (value != 0 && !board.placeDigit(idx / size, idx % size, value)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Write the board out as one line of ASCII bytes starting at offset
+     *
+     * @return Offset just past the last byte written
+     */
+    public static int format(Board board, byte[] dest, int offset) {
+        int size = board.getSize();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                dest[offset++] = (byte) charOf(board.valueAt(row, col));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Write the board out as one line
+     */
+    public static String format(Board board) {
+        int size = board.getSize();
+        StringBuilder line = new StringBuilder(size * size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                line.append(charOf(board.valueAt(row, col)));
+            }
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,420 @@
+package com.dooku.batch;
+
+import com.dooku.Board;
+import com.dooku.DifficultyGrader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates puzzles with exactly one solution, for every grid size the app offers (4x4 to 25x25).
+ *
+ * A puzzle starts as a random full grid: the boxes on the main diagonal don't constrain each
+ * other, so they get random permutations and {@link Board}'s solver fills in the rest. Clues then
+ * come out in random order, a whole symmetry orbit at a time, and a removal is kept only if
+ * {@link Board#countSolutions(int)} still finds a single solution within the check budget. What
+ * is left is minimal for the chosen symmetry; a check that runs out of budget only ever leaves a
+ * clue in. With a target tier, puzzles that grade differently are thrown away and the next grid
+ * is tried; EASY is built straight in by keeping only removals that singles can still solve.
+ *
+ * An instance is single threaded and reuses its boards. Every puzzle comes from its own seed, so
+ * puzzle i of a run is the same whatever the thread count. {@link #run(Options)} spreads a run
+ * over a thread pool and writes the puzzles in order, one {@link PuzzleFormat} line each:
+ *
+ * <pre>
+ * java -cp target/classes com.dooku.batch.PuzzleGenerator puzzles.txt --size 9 --count 10000 --threads 8 --symmetry ROTATIONAL --tier HARD
+ * </pre>
+ */
+public class PuzzleGenerator {
+
+    /**
+     * Which cells must be blank together, so the clues form a pattern
+     */
+    public enum Symmetry {
+        NONE,
+        ROTATIONAL,     // Half turn about the centre
+        MIRROR,         // Left to right
+        DIAGONAL;       // Across the main diagonal
+
+        /**
+         * The cell (row * size + col) that mirrors the given one; may be the cell itself
+         */
+        int partner(int row, int col, int size) {
+            switch (this) {
+                case ROTATIONAL: return (size - 1 - row) * size + size - 1 - col;
+                case MIRROR:     return row * size + size - 1 - col;
+                case DIAGONAL:   return col * size + row;
+                default:         return row * size + col;
+            }
+        }
+    }
+
+    /**
+     * Settings for one run
+     */
+    public static class Options {
+        public Path output;
+        public int n = 3;                   // Box size: 2, 3, 4 or 5 for 4x4 up to 25x25
+        public int count = 100;
+        public int threads = Runtime.getRuntime().availableProcessors();
+        public long seed = System.nanoTime();
+        public Symmetry symmetry = Symmetry.NONE;
+        public DifficultyGrader.Tier tier = null;     // Any tier when null
+        public long checkMillis = -1;       // Budget per uniqueness check; -1 picks one by size, 0 for none
+        public int maxAttempts = 1000;      // Grids to try per puzzle when a tier is wanted
+    }
+
+    /**
+     * Totals of a finished run
+     */
+    public static class Report {
+        long generated, failed, grids;
+        long elapsedNanos;
+
+        public long getGenerated() { return generated; }
+
+        /**
+         * Puzzles given up on because maxAttempts grids never produced the wanted tier
+         */
+        public long getFailed() { return failed; }
+
+        /**
+         * Full grids carved, counting those thrown away for grading differently
+         */
+        public long getGrids() { return grids; }
+
+        public double puzzlesPerSecond() {
+            return elapsedNanos == 0 ? 0 : generated * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d puzzles (%d failed, %d grids) in %.2f s: %.1f puzzles/sec",
+                generated, failed, grids, elapsedNanos / 1e9, puzzlesPerSecond());
+        }
+    }
+
+    private static final long FILL_NANOS = 250_000_000;     // Reseed a grid the solver can't finish in this
+    private static final int PUZZLES_PER_TASK = 16;
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final int n;
+    private final int size;
+    private final Board board;      // The puzzle being carved
+    private final Board scratch;    // For grading, which solves the board it's given
+    private final int[] order;      // Cells in removal order
+    private final int[] digits;
+    private final boolean[] tried;
+    private Symmetry symmetry = Symmetry.NONE;
+    private DifficultyGrader.Tier tier = null;
+    private long checkNanos;
+    private int maxAttempts = 1000;
+    private int grids;
+
+    public PuzzleGenerator(int n) {
+        if (n < 2 || n > 5) {
+            throw new IllegalArgumentException("Box size must be between 2 and 5");
+        }
+        this.n = n;
+        this.size = n * n;
+        this.board = new Board(n);
+        this.scratch = new Board(n);
+        board.setRecording(false);
+        scratch.setRecording(false);
+        this.order = new int[size * size];
+        this.digits = new int[size];
+        this.tried = new boolean[size * size];
+        this.checkNanos = defaultCheckMillis(n) * 1_000_000;
+    }
+
+    public void setSymmetry(Symmetry symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Only produce puzzles of this tier; null for any
+     */
+    public void setTier(DifficultyGrader.Tier tier) {
+        this.tier = tier;
+    }
+
+    /**
+     * Longest a single uniqueness check may take, 0 for no limit. A check that runs out keeps its
+     * clue, so tighter budgets trade a few extra clues for speed on large grids
+     */
+    public void setCheckMillis(long checkMillis) {
+        if (checkMillis < 0) {
+            throw new IllegalArgumentException("Check budget must not be negative");
+        }
+        this.checkNanos = checkMillis * 1_000_000;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Need at least one attempt");
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Full grids carved for the last puzzle
+     */
+    public int getGrids() {
+        return grids;
+    }
+
+    static long defaultCheckMillis(int n) {
+        return n <= 3 ? 0 : n == 4 ? 5 : 20;     // The 9x9 kernel never needs one; bigger budgets barely cut clues
+    }
+
+    /**
+     * Generate the puzzle for a seed
+     *
+     * @return A board holding just the givens, valid until the next call, or null if no grid out
+     *         of maxAttempts graded as the wanted tier
+     */
+    public Board generate(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (grids = 1; grids <= maxAttempts; grids++) {
+            fillGrid(random);
+            carve(random);
+            if (tier == null || tier == DifficultyGrader.Tier.EASY || tierOf(board) == tier) return board;
+        }
+        grids = maxAttempts;
+        return null;
+    }
+
+    private void fillGrid(SplittableRandom random) {
+        do {
+            board.clear();
+            for (int box = 0; box < n; box++) {
+                shuffle(digits, random);
+                for (int k = 0; k < size; k++) {
+                    board.placeDigit(box * n + k / n, box * n + k % n, digits[k] + 1);
+                }
+            }
+            board.setDeadline(System.nanoTime() + FILL_NANOS);
+            board.solve();
+        } while (!board.isSolved());    // Some 4x4 seedings have no completion; big ones may just be slow
+        board.setDeadline(0);
+    }
+
+    private void carve(SplittableRandom random) {
+        shuffle(order, random);
+        Arrays.fill(tried, false);
+        for (int cell : order) {
+            int partner = symmetry.partner(cell / size, cell % size, size);
+            if (tried[cell]) continue;
+            tried[cell] = tried[partner] = true;
+
+            int value = board.valueAt(cell / size, cell % size);
+            int partnerValue = board.valueAt(partner / size, partner % size);
+            board.removeDigit(cell / size, cell % size);
+            board.removeDigit(partner / size, partner % size);
+            if (!stillUnique()) {
+                board.placeDigit(cell / size, cell % size, value);
+                board.placeDigit(partner / size, partner % size, partnerValue);
+            }
+        }
+    }
+
+    private boolean stillUnique() {
+        board.setDeadline(checkNanos == 0 ? 0 : System.nanoTime() + checkNanos);
+        try {
+            if (board.countSolutions(2) != 1 || board.wasAborted()) return false;
+            // Singles alone never guess, so a guess-free count means the puzzle stays EASY
+            return tier != DifficultyGrader.Tier.EASY || board.getSolveStats().getGuesses() == 0;
+        } finally {
+            board.setDeadline(0);
+        }
+    }
+
+    private DifficultyGrader.Tier tierOf(Board puzzle) {
+        scratch.clear();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = puzzle.valueAt(row, col);
+                if (value != 0) scratch.placeDigit(row, col, value);
+            }
+        }
+        DifficultyGrader.Grade grade = DifficultyGrader.grade(scratch);
+        return grade == null ? null : grade.getTier();
+    }
+
+    private static void shuffle(int[] values, SplittableRandom random) {
+        for (int i = 0; i < values.length; i++) values[i] = i;
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    // Command line
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options;
+        try {
+            options = parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: PuzzleGenerator <output> [--size 4|9|16|25] [--count N] [--threads N] [--seed S]"
+                + " [--symmetry NONE|ROTATIONAL|MIRROR|DIAGONAL] [--tier EASY|MEDIUM|HARD|EXPERT|EXTREME] [--check-millis N]");
+            System.exit(2);
+            return;
+        }
+        System.out.println(run(options));
+    }
+
+    static Options parseArgs(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size":
+                    int size = Integer.parseInt(value(args, ++i));
+                    options.n = (int) Math.round(Math.sqrt(size));
+                    if (options.n * options.n != size || options.n < 2 || options.n > 5) {
+                        throw new IllegalArgumentException("--size must be 4, 9, 16 or 25");
+                    }
+                    break;
+                case "--count":
+                    options.count = Integer.parseInt(value(args, ++i));
+                    if (options.count < 0) throw new IllegalArgumentException("--count must not be negative");
+                    break;
+                case "--threads":
+                    options.threads = Integer.parseInt(value(args, ++i));
+                    if (options.threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+                    break;
+                case "--seed":
+                    options.seed = Long.parseLong(value(args, ++i));
+                    break;
+                case "--symmetry":
+                    options.symmetry = Symmetry.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "--tier":
+                    options.tier = DifficultyGrader.Tier.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "--check-millis":
+                    options.checkMillis = Long.parseLong(value(args, ++i));
+                    if (options.checkMillis < 0) throw new IllegalArgumentException("--check-millis must not be negative");
+                    break;
+                default:
+                    if (options.output != null) throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                    options.output = Paths.get(args[i]);
+            }
+        }
+        if (options.output == null) throw new IllegalArgumentException("Output file is required");
+        return options;
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    /**
+     * Generate options.count puzzles across options.threads workers and write them in order
+     */
+    public static Report run(Options options) throws IOException, InterruptedException {
+        Report report = new Report();
+        ExecutorService pool = Executors.newFixedThreadPool(options.threads, runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadLocal<PuzzleGenerator> generators = ThreadLocal.withInitial(() -> {
+            PuzzleGenerator generator = new PuzzleGenerator(options.n);
+            generator.setSymmetry(options.symmetry);
+            generator.setTier(options.tier);
+            generator.setMaxAttempts(options.maxAttempts);
+            if (options.checkMillis >= 0) generator.setCheckMillis(options.checkMillis);
+            return generator;
+        });
+
+        long start = System.nanoTime();
+        try (OutputStream out = Files.newOutputStream(options.output)) {
+            Deque<Future<Batch>> inFlight = new ArrayDeque<>();
+            int maxInFlight = options.threads * TASKS_PER_THREAD;
+            for (int first = 0; first < options.count; first += PUZZLES_PER_TASK) {
+                Batch batch = new Batch(first, Math.min(options.count, first + PUZZLES_PER_TASK), options.n);
+                inFlight.add(pool.submit(() -> batch.generate(generators.get(), options.seed)));
+                if (inFlight.size() >= maxInFlight) {
+                    write(await(inFlight.poll()), out, report);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(await(inFlight.poll()), out, report);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Seed of the index-th puzzle of a run - spread out so neighbouring puzzles share nothing
+     */
+    static long seedOf(long runSeed, long index) {
+        return runSeed + index * 0x9E3779B97F4A7C15L;
+    }
+
+    private static Batch await(Future<Batch> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generator thread failed", e.getCause());
+        }
+    }
+
+    private static void write(Batch batch, OutputStream out, Report report) throws IOException {
+        out.write(batch.output, 0, batch.outputSize);
+        report.generated += batch.generated;
+        report.failed += batch.failed;
+        report.grids += batch.grids;
+    }
+
+    /**
+     * A run of consecutive puzzle indices generated by one worker, with its lines ready to append
+     */
+    private static class Batch {
+        final int first, end;
+        final byte[] output;
+        int outputSize = 0;
+        long generated, failed, grids;
+
+        Batch(int first, int end, int n) {
+            this.first = first;
+            this.end = end;
+            this.output = new byte[(end - first) * (n * n * n * n + 1)];
+        }
+
+        Batch generate(PuzzleGenerator generator, long runSeed) {
+            for (int index = first; index < end; index++) {
+                Board puzzle = generator.generate(seedOf(runSeed, index));
+                grids += generator.getGrids();
+                if (puzzle == null) {
+                    failed++;
+                    continue;
+                }
+                generated++;
+                outputSize = PuzzleFormat.format(puzzle, output, outputSize);
+                output[outputSize++] = '\n';
+            }
+            return this;
+        }
+    }
+}
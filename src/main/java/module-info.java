@@ -10,6 +10,7 @@ module com.dooku {
 
     opens com.dooku to javafx.fxml;
     exports com.dooku;
+    exports com.dooku.batch;
     exports com.dooku.utils;
     exports com.dooku.vision;
     exports com.dooku.vision.model;
@@ -0,0 +1,157 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnytimeSolveTest {
+
+    @Test
+    void testNodeLimitStopsWithAPartial() {
+        for (Board.Engine engine : Board.Engine.values()) {
+            Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+            int empty = board.getEmptyCount();
+            board.setRecording(false);  // Would be the kernel without a budget
+
+            Board.Status status = board.solveWithin(engine, 0, 5);
+
+            assertEquals(Board.Status.BUDGET_EXHAUSTED, status, engine.toString());
+            assertEquals(status, board.getStatus());
+            assertTrue(board.wasAborted());
+            assertTrue(board.getSolveStats().getNodes() <= 6);
+            assertEquals(empty, board.getEmptyCount());     // The board itself is back to its givens
+
+            int[] partial = board.getBestPartial();
+            assertTrue(filled(partial) > 81 - empty, engine + " got no further than the givens");
+            assertConsistent(3, BoardTest.HARDER_9X9, partial);
+        }
+    }
+
+    @Test
+    void testTimeLimitOnAGiantGrid() {
+        // Half blank at 36x36 - far too much for the backtracker to finish
+        int n = 6, size = 36;
+        int[][] givens = BoardTest.patternPuzzle(n, 1);
+        Random random = new Random(5);
+        for (int[] row : givens) {
+            for (int col = 0; col < size; col++) {
+                if (random.nextBoolean()) row[col] = 0;
+            }
+        }
+        Board board = BoardTest.load(n, givens);
+        board.setRecording(false);
+        int empty = board.getEmptyCount();
+
+        long start = System.nanoTime();
+        Board.Status status = board.solveWithin(50, 0);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Board.Status.BUDGET_EXHAUSTED, status);
+        assertTrue(elapsedMillis < 2000, "Took " + elapsedMillis + " ms");
+        assertTrue(filled(board.getBestPartial()) > size * size - empty);
+        assertEquals(0, board.getEmptyCount() - empty);
+    }
+
+    @Test
+    void testSolvedAndUnsolvable() {
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+        board.setRecording(false);
+
+        assertEquals(Board.Status.SOLVED, board.solveWithin(10_000, 1_000_000));
+        assertTrue(board.isSolved());
+        int[] partial = board.getBestPartial();
+        for (int cell = 0; cell < 81; cell++) {
+            assertEquals(board.valueAt(cell / 9, cell % 9), partial[cell]);
+        }
+
+        Board unsolvable = BoardTest.load(2, "1230000000040000");
+        assertEquals(Board.Status.UNSOLVABLE, unsolvable.solveWithin(0, 0));
+        assertFalse(unsolvable.wasAborted());
+    }
+
+    @Test
+    void testBudgetIsOnlyForThatSolve() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        assertNull(board.getStatus());
+        assertNull(board.getBestPartial());
+
+        assertEquals(Board.Status.BUDGET_EXHAUSTED, board.solveWithin(0, 3));
+
+        board.solve();
+        assertEquals(Board.Status.SOLVED, board.getStatus());
+        assertTrue(board.getSolveStats().getNodes() > 3);
+
+        assertThrows(IllegalArgumentException.class, () -> board.solveWithin(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> board.setNodeLimit(-1));
+    }
+
+    @Test
+    void testNodeLimitAppliesToPlainSolves() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.setNodeLimit(10);
+
+        board.solve();
+
+        assertEquals(Board.Status.BUDGET_EXHAUSTED, board.getStatus());
+        board.setNodeLimit(0);
+        board.solve();
+        assertEquals(Board.Status.SOLVED, board.getStatus());
+    }
+
+    @Test
+    void testIsSolvedFollowsTheLastSolve() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.solve();
+        assertTrue(board.isSolved());
+
+        board.removeDigit(4, 4);
+        assertFalse(board.isSolved());
+        board.solve();
+        assertTrue(board.isSolved());
+
+        // Reused for a puzzle the budget can't cover
+        board.clear();
+        assertNull(board.getStatus());
+        assertNull(board.getBestPartial());
+        for (int cell = 0; cell < 81; cell++) {
+            int value = BoardTest.HARDER_9X9.charAt(cell) - '0';
+            if (value != 0) board.placeDigit(cell / 9, cell % 9, value);
+        }
+        assertEquals(Board.Status.BUDGET_EXHAUSTED, board.solveWithin(0, 3));
+        assertFalse(board.isSolved());
+        board.setNodeLimit(3);
+        board.solveParallel(2);
+        assertFalse(board.isSolved());
+    }
+
+    private static int filled(int[] grid) {
+        int count = 0;
+        for (int value : grid) {
+            if (value != 0) count++;
+        }
+        return count;
+    }
+
+    /**
+     * The partial keeps every given and repeats no digit in any unit
+     */
+    private static void assertConsistent(int n, String puzzle, int[] partial) {
+        int size = n * n;
+        for (int cell = 0; cell < size * size; cell++) {
+            int given = Character.digit(puzzle.charAt(cell), size + 1);
+            if (given != 0) assertEquals(given, partial[cell]);
+        }
+        Geometry geometry = Geometry.of(n);
+        for (int unit = 0; unit < 3 * size; unit++) {
+            long seen = 0;
+            for (int k = 0; k < size; k++) {
+                int value = partial[geometry.unitCells[unit * size + k]];
+                if (value == 0) continue;
+                assertEquals(0, seen & 1L << value, "Unit " + unit + " repeats " + value);
+                seen |= 1L << value;
+            }
+        }
+    }
+}
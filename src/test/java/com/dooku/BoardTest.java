@@ -0,0 +1,283 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardTest {
+
+    static final String EASY_9X9 =
+        "530070000600195000098000060800060003400803001700020006060000280000419005000080079";
+    static final String HARD_9X9 =  // "AI Escargot"
+        "100007090030020008009600500005300900010080002600004000300000010040000007007000300";
+    static final String HARDER_9X9 = // "Easter Monster" - thousands of steps for the backtracker
+        "100000002090400050006000700050903000000070000000850040700000600030009080002000001";
+
+    @Test
+    void testSolveEasy9x9() {
+        Board board = load(3, EASY_9X9);
+
+        board.solve();
+
+        assertTrue(board.isSolved());
+        assertValidSolution(board, 3, EASY_9X9);
+    }
+
+    @Test
+    void testSolveHard9x9() {
+        Board board = load(3, HARD_9X9);
+
+        board.solve();
+
+        assertTrue(board.isSolved());
+        assertValidSolution(board, 3, HARD_9X9);
+    }
+
+    @Test
+    void testSolveEmpty4x4() {
+        Board board = new Board(2);
+
+        board.solve();
+
+        assertTrue(board.isSolved());
+        assertEquals(0, board.getEmptyCount());
+        assertValidSolution(board, 2, "0000000000000000");
+    }
+
+    @Test
+    void testSolve16x16() {
+        int[][] givens = patternPuzzle(4, 3);
+        Board board = load(4, givens);
+
+        board.solve();
+
+        assertTrue(board.isSolved());
+        assertValidSolution(board, 4, givens);
+    }
+
+    @Test
+    void testSolveWideGrids() {
+        // Past 31 digits the masks need all 64 bits
+        for (int n = 6; n <= Board.MAX_N; n++) {
+            int[][] givens = patternPuzzle(n, 2);
+            for (Board.Engine engine : Board.Engine.values()) {
+                Board board = load(n, givens);
+
+                board.solve(engine);
+
+                assertTrue(board.isSolved(), engine + " on " + n * n + "x" + n * n);
+                assertValidSolution(board, n, givens);
+            }
+        }
+
+        Board empty = new Board(Board.MAX_N);
+        assertEquals((1L << 50) - 2, empty.getPossibilities(48, 48));
+        empty.placeDigit(0, 0, 49);
+        assertEquals((1L << 49) - 2, empty.getPossibilities(0, 48));
+    }
+
+    @Test
+    void testRejectsUnsupportedDimension() {
+        assertThrows(IllegalArgumentException.class, () -> new Board(0));
+        assertThrows(IllegalArgumentException.class, () -> new Board(Board.MAX_N + 1));
+    }
+
+    @Test
+    void testUnsolvablePuzzle() {
+        // Top-right cell can only be 4, which its column already holds
+        Board board = load(2, "1230000000040000");
+
+        board.solve();
+
+        assertFalse(board.isSolved());
+        assertEquals(12, board.getEmptyCount()); // Trail rewound back to the givens
+    }
+
+    @Test
+    void testExpiredDeadlineAbortsBeforeSearching() {
+        Board board = load(3, HARD_9X9);
+        int empty = board.getEmptyCount();
+        board.setDeadline(System.nanoTime() - 1);
+
+        board.solve();
+
+        assertTrue(board.wasAborted());
+        assertFalse(board.isSolved());
+        assertEquals(empty, board.getEmptyCount());
+    }
+
+    @Test
+    void testCancelMidSearchRestoresGivens() {
+        Board board = load(3, HARDER_9X9);
+        int empty = board.getEmptyCount();
+        board.setTraceSearch(true);     // Steps as the search goes, so the cancel lands mid-search
+        board.setStepChannel(afterSteps(20, board::cancel));
+
+        board.solve();
+
+        assertTrue(board.wasAborted());
+        assertFalse(board.isSolved());
+        assertEquals(empty, board.getEmptyCount());
+
+        // The cancel only applied to that solve - the restored board solves normally
+        board.setStepChannel(null);
+        board.solve();
+        assertFalse(board.wasAborted());
+        assertTrue(board.isSolved());
+        assertValidSolution(board, 3, HARDER_9X9);
+    }
+
+    @Test
+    void testDeadlinePassingMidSearch() {
+        Board board = load(3, HARDER_9X9);
+        int empty = board.getEmptyCount();
+        board.setTraceSearch(true);
+        board.setStepChannel(afterSteps(20, () -> board.setDeadline(System.nanoTime())));
+
+        board.solve();
+
+        assertTrue(board.wasAborted());
+        assertEquals(empty, board.getEmptyCount());
+    }
+
+    @Test
+    void testPropagationFindsDeadEnd() {
+        // Row 0 has nowhere left for a 1: its box holds one and the other cells are taken
+        Board board = load(2, "0034100000000000");
+
+        assertFalse(board.propagate());
+
+        board = load(2, "0034100000000000");
+        board.solve();
+
+        assertFalse(board.isSolved());
+        assertEquals(13, board.getEmptyCount());
+    }
+
+    @Test
+    void testRejectsConflictingPlacement() {
+        Board board = new Board(3);
+
+        assertTrue(board.placeDigit(0, 0, 0, 0, 5));
+        assertFalse(board.placeDigit(0, 1, 0, 0, 5));  // Same row
+        assertFalse(board.placeDigit(1, 0, 0, 0, 5));  // Same column
+        assertFalse(board.placeDigit(0, 0, 1, 1, 5));  // Same box
+        assertFalse(board.placeDigit(2, 2, 2, 2, 10)); // Out of range
+    }
+
+    @Test
+    void testCandidatesTrackPlaceAndRemove() {
+        int n = 3, size = 9;
+        Board board = new Board(n);
+        Random random = new Random(42);
+
+        for (int step = 0; step < 2000; step++) {
+            int row = random.nextInt(size), col = random.nextInt(size);
+            if (random.nextInt(3) == 0) {
+                board.removeDigit(row / n, col / n, row % n, col % n);
+            } else {
+                board.placeDigit(row / n, col / n, row % n, col % n, 1 + random.nextInt(size));
+            }
+
+            int empty = 0;
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    if (board.valueAt(r, c) == 0) empty++;
+                    assertEquals(bruteForceCandidates(board, n, r, c), board.getPossibilities(r, c),
+                        "Stale candidates at " + r + "," + c + " after step " + step);
+                }
+            }
+            assertEquals(empty, board.getEmptyCount());
+        }
+    }
+
+    // Helpers
+
+    /**
+     * Channel that runs an action once the solver has published the given number of steps
+     */
+    static StepChannel afterSteps(int steps, Runnable action) {
+        return new StepChannel(1 << 16, StepChannel.OverflowPolicy.SAMPLE) {
+            private int published = 0;
+
+            @Override
+            public boolean publish(long step) {
+                if (++published == steps) action.run();
+                return super.publish(step);
+            }
+        };
+    }
+
+    static Board load(int n, String puzzle) {
+        int size = n * n;
+        int[][] givens = new int[size][size];
+        for (int idx = 0; idx < size * size; idx++) {
+            givens[idx / size][idx % size] = Character.digit(puzzle.charAt(idx), size + 1);
+        }
+        return load(n, givens);
+    }
+
+    static Board load(int n, int[][] givens) {
+        return Puzzles.load(n, givens);
+    }
+
+    /**
+     * Valid full grid from the standard shifting pattern, with every {@code stride}-th cell blanked
+     */
+    static int[][] patternPuzzle(int n, int stride) {
+        int size = n * n;
+        int[][] grid = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                boolean blank = (row * size + col) % stride != 0;
+                grid[row][col] = blank ? 0 : (n * (row % n) + row / n + col) % size + 1;
+            }
+        }
+        return grid;
+    }
+
+    static void assertValidSolution(Board board, int n, String puzzle) {
+        int size = n * n;
+        int[][] givens = new int[size][size];
+        for (int idx = 0; idx < size * size; idx++) {
+            givens[idx / size][idx % size] = Character.digit(puzzle.charAt(idx), size + 1);
+        }
+        assertValidSolution(board, n, givens);
+    }
+
+    static void assertValidSolution(Board board, int n, int[][] givens) {
+        int size = n * n;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = board.valueAt(row, col);
+                assertTrue(value >= 1 && value <= size, "Cell " + row + "," + col + " not filled");
+                if (givens[row][col] != 0) {
+                    assertEquals(givens[row][col], value, "Given overwritten at " + row + "," + col);
+                }
+                for (int k = 0; k < size; k++) {
+                    if (k != col) assertNotEquals(value, board.valueAt(row, k));
+                    if (k != row) assertNotEquals(value, board.valueAt(k, col));
+                    int r = (row / n) * n + k / n, c = (col / n) * n + k % n;
+                    if (r != row || c != col) assertNotEquals(value, board.valueAt(r, c));
+                }
+            }
+        }
+    }
+
+    private static long bruteForceCandidates(Board board, int n, int row, int col) {
+        int size = n * n;
+        if (board.valueAt(row, col) != 0) return 0;
+        long mask = 0;
+        for (int value = 1; value <= size; value++) {
+            boolean used = false;
+            for (int k = 0; k < size && !used; k++) {
+                int r = (row / n) * n + k / n, c = (col / n) * n + k % n;
+                used = board.valueAt(row, k) == value || board.valueAt(k, col) == value || board.valueAt(r, c) == value;
+            }
+            if (!used) mask |= 1L << value;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,120 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanonicalizerTest {
+
+    @Test
+    void testEquivalentPuzzlesShareAForm() {
+        Random random = new Random(19);
+        for (String puzzle : new String[]{BoardTest.EASY_9X9, BoardTest.HARD_9X9, BoardTest.HARDER_9X9}) {
+            int[] grid = parse(puzzle);
+            String key = Canonicalizer.canonicalize(3, grid).getKey();
+            for (int i = 0; i < 20; i++) {
+                assertEquals(key, Canonicalizer.canonicalize(3, shuffle(3, grid, random)).getKey());
+            }
+        }
+    }
+
+    @Test
+    void testLargerGrids() {
+        Random random = new Random(16);
+        for (int n = 2; n <= 5; n++) {
+            // A full grid with half its cells blanked at random - regular blanking ties too much
+            int[][] rows = BoardTest.patternPuzzle(n, 1);
+            int size = n * n;
+            int[] grid = new int[size * size];
+            for (int row = 0; row < size; row++) System.arraycopy(rows[row], 0, grid, row * size, size);
+            for (int i = 0; i < grid.length; i++) {
+                if (random.nextBoolean()) grid[i] = 0;
+            }
+
+            String key = Canonicalizer.canonicalize(n, grid).getKey();
+            for (int i = 0; i < 5; i++) {
+                assertEquals(key, Canonicalizer.canonicalize(n, shuffle(n, grid, random)).getKey(), "n = " + n);
+            }
+        }
+    }
+
+    @Test
+    void testDifferentPuzzlesDiffer() {
+        assertNotEquals(Canonicalizer.canonicalize(3, parse(BoardTest.EASY_9X9)).getKey(),
+            Canonicalizer.canonicalize(3, parse(BoardTest.HARD_9X9)).getKey());
+    }
+
+    @Test
+    void testTransformRoundTrips() {
+        int[] grid = shuffle(3, parse(BoardTest.HARD_9X9), new Random(3));
+        Canonicalizer.Form form = Canonicalizer.canonicalize(3, grid);
+
+        assertArrayEquals(form.getCells(), form.toCanonical(grid));
+        assertArrayEquals(grid, form.fromCanonical(form.getCells()));
+        // The canonical form is its own canonical form
+        assertArrayEquals(form.getCells(), Canonicalizer.canonicalize(3, form.getCells()).getCells());
+    }
+
+    @Test
+    void testFullGridsStillRoundTrip() {
+        // No blanks to order by, so the ties overflow - the transform must still be right
+        int[][] rows = BoardTest.patternPuzzle(3, 1);
+        int[] grid = new int[81];
+        for (int row = 0; row < 9; row++) System.arraycopy(rows[row], 0, grid, row * 9, 9);
+
+        Canonicalizer.Form form = Canonicalizer.canonicalize(3, grid);
+
+        assertArrayEquals(grid, form.fromCanonical(form.getCells()));
+    }
+
+    static int[] parse(String puzzle) {
+        int[] grid = new int[puzzle.length()];
+        for (int i = 0; i < grid.length; i++) grid[i] = puzzle.charAt(i) - '0';
+        return grid;
+    }
+
+    /**
+     * A random member of the grid's class: digits relabelled, bands, rows, stacks and columns
+     * shuffled, maybe transposed
+     */
+    static int[] shuffle(int n, int[] grid, Random random) {
+        int size = n * n;
+        int[] rows = lines(n, random), cols = lines(n, random), digits = new int[size + 1];
+        int[] labels = permutation(size, random);
+        for (int digit = 1; digit <= size; digit++) digits[digit] = labels[digit - 1] + 1;
+        boolean transpose = random.nextBoolean();
+
+        int[] result = new int[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int from = transpose ? cols[j] * size + rows[i] : rows[i] * size + cols[j];
+                result[i * size + j] = digits[grid[from]];
+            }
+        }
+        return result;
+    }
+
+    private static int[] lines(int n, Random random) {
+        int[] bands = permutation(n, random);
+        int[] lines = new int[n * n];
+        for (int band = 0; band < n; band++) {
+            int[] within = permutation(n, random);
+            for (int k = 0; k < n; k++) lines[band * n + k] = bands[band] * n + within[k];
+        }
+        return lines;
+    }
+
+    private static int[] permutation(int length, Random random) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) values[i] = i;
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,85 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DancingLinksTest {
+
+    @Test
+    void testSolvesEasy9x9() {
+        Board board = BoardTest.load(3, BoardTest.EASY_9X9);
+
+        board.solve(Board.Engine.DANCING_LINKS);
+
+        assertTrue(board.isSolved());
+        assertEquals(0, board.getEmptyCount());
+        BoardTest.assertValidSolution(board, 3, BoardTest.EASY_9X9);
+    }
+
+    @Test
+    void testSolvesHard9x9() {
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+
+        board.solve(Board.Engine.DANCING_LINKS);
+
+        assertTrue(board.isSolved());
+        BoardTest.assertValidSolution(board, 3, BoardTest.HARD_9X9);
+    }
+
+    @Test
+    void testSolves16x16() {
+        int[][] givens = BoardTest.patternPuzzle(4, 3);
+        Board board = BoardTest.load(4, givens);
+
+        board.solve(Board.Engine.DANCING_LINKS);
+
+        assertTrue(board.isSolved());
+        BoardTest.assertValidSolution(board, 4, givens);
+    }
+
+    @Test
+    void testUnsolvableLeavesGivensOnly() {
+        Board board = BoardTest.load(2, "1230000000040000");
+
+        board.solve(Board.Engine.DANCING_LINKS);
+
+        assertFalse(board.isSolved());
+        assertEquals(12, board.getEmptyCount());
+    }
+
+    @Test
+    void testCancelledBeforeStartLeavesBoardUntouched() {
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+        int empty = board.getEmptyCount();
+        board.cancel();
+
+        board.solve(Board.Engine.DANCING_LINKS);
+
+        assertTrue(board.wasAborted());
+        assertFalse(board.isSolved());
+        assertEquals(empty, board.getEmptyCount());
+    }
+
+    @Test
+    void testStepsReplayToSolution() {
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+
+        board.solve(Board.Engine.DANCING_LINKS);
+
+        // Replaying the recorded steps over the givens must reproduce the final grid
+        int[][] replay = new int[9][9];
+        for (int idx = 0; idx < 81; idx++) {
+            replay[idx / 9][idx % 9] = BoardTest.HARD_9X9.charAt(idx) - '0';
+        }
+        StepLog.Cursor steps = board.observableState.cursor();
+        while (steps.next()) {
+            replay[steps.cell() / 9][steps.cell() % 9] = steps.value();
+        }
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                assertEquals(board.valueAt(row, col), replay[row][col]);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DifficultyGraderTest {
+
+    // 17-clue puzzles, cracked by singles, a pointing pair, a box/line reduction, and not without a guess
+    static final String SINGLES =
+        "000000010400000000020000000000050407008000300001090000300400200050100000000806000";
+    static final String POINTING =
+        "000000012050400000000000030700600400001000000000080000920000800000510700000003000";
+    static final String BOX_LINE =
+        "000000012008030000000000040120500000000004700060000000507000300000620000000100000";
+    // Cracked by an X-Wing, and by a naked triple too if that is tried first
+    static final String X_WING =
+        "000100450009080001000030007000008010050000600497000803002050700130002000070300000";
+    static final String GUESSING =
+        "000000012400090000000000050070200000600000400000108000018000000000030700502000000";
+
+    @Test
+    void testSinglesAreEasy() {
+        Board board = BoardTest.load(3, SINGLES);
+
+        DifficultyGrader.Grade grade = DifficultyGrader.grade(board);
+
+        assertNull(grade.getHardest());
+        assertEquals(0, grade.getGuesses());
+        assertEquals(1.5, grade.getRating());
+        assertEquals(DifficultyGrader.Tier.EASY, grade.getTier());
+        assertTrue(board.isSolved());
+        BoardTest.assertValidSolution(board, 3, SINGLES);
+    }
+
+    @Test
+    void testHardestTechniqueSetsTheRating() {
+        DifficultyGrader.Grade pointing = DifficultyGrader.grade(BoardTest.load(3, POINTING));
+        DifficultyGrader.Grade boxLine = DifficultyGrader.grade(BoardTest.load(3, BOX_LINE));
+
+        assertEquals(Technique.POINTING_PAIR, pointing.getHardest());
+        assertEquals(Technique.BOX_LINE_REDUCTION, boxLine.getHardest());
+        assertTrue(pointing.getRating() < boxLine.getRating());
+        assertEquals(DifficultyGrader.Tier.MEDIUM, boxLine.getTier());
+        assertFalse(boxLine.needsGuessing());
+    }
+
+    @Test
+    void testCheaperTechniquesAreTriedFirst() {
+        Board board = BoardTest.load(3, X_WING);
+
+        DifficultyGrader.Grade grade = DifficultyGrader.grade(board);
+
+        assertEquals(Technique.X_WING, grade.getHardest());
+        assertEquals(3.2, grade.getRating());
+        assertEquals(DifficultyGrader.Tier.HARD, grade.getTier());
+        BoardTest.assertValidSolution(board, 3, X_WING);
+    }
+
+    @Test
+    void testGuessingIsExtreme() {
+        Board board = BoardTest.load(3, GUESSING);
+
+        DifficultyGrader.Grade grade = DifficultyGrader.grade(board);
+
+        assertTrue(grade.needsGuessing());
+        assertTrue(grade.getGuesses() > 0);
+        assertTrue(grade.getRating() > DifficultyGrader.GUESS_RATING);
+        assertEquals(DifficultyGrader.Tier.EXTREME, grade.getTier());
+        BoardTest.assertValidSolution(board, 3, GUESSING);
+    }
+
+    @Test
+    void testUnsolvableHasNoGrade() {
+        assertNull(DifficultyGrader.grade(BoardTest.load(2, "1230000000040000")));
+    }
+
+    @Test
+    void testLargerBoards() {
+        Board board = BoardTest.load(4, BoardTest.patternPuzzle(4, 3));
+
+        DifficultyGrader.Grade grade = DifficultyGrader.grade(board);
+
+        assertNotNull(grade);
+        assertTrue(board.isSolved());
+    }
+
+    @Test
+    void testReusedBoard() {
+        Board board = BoardTest.load(3, GUESSING);
+        board.solve();
+        for (int cell = 0; cell < 81; cell++) {
+            if (GUESSING.charAt(cell) == '0') board.removeDigit(cell / 9, cell % 9);
+        }
+
+        DifficultyGrader.Grade grade = DifficultyGrader.grade(board);
+
+        assertTrue(grade.needsGuessing());
+        BoardTest.assertValidSolution(board, 3, GUESSING);
+    }
+
+    @Test
+    void testSettingsArePutBack() {
+        Board board = BoardTest.load(3, GUESSING);
+        board.setTechniques(EnumSet.of(Technique.X_WING));
+
+        DifficultyGrader.grade(board);
+
+        assertEquals(EnumSet.of(Technique.X_WING), board.getTechniques());
+        assertTrue(board.isRecording());
+    }
+
+    @Test
+    void testTiers() {
+        assertEquals(DifficultyGrader.Tier.EASY, DifficultyGrader.Tier.of(1.5));
+        assertEquals(DifficultyGrader.Tier.MEDIUM, DifficultyGrader.Tier.of(2.6));
+        assertEquals(DifficultyGrader.Tier.HARD, DifficultyGrader.Tier.of(3.2));
+        assertEquals(DifficultyGrader.Tier.EXPERT, DifficultyGrader.Tier.of(4.0));
+        assertEquals(DifficultyGrader.Tier.EXTREME, DifficultyGrader.Tier.of(5.0));
+    }
+}
@@ -0,0 +1,59 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeometryTest {
+
+    @Test
+    void testPeersAreExactlyTheCellsSharingAUnit() {
+        for (int n = 1; n <= Board.MAX_N; n++) {
+            Geometry geometry = Geometry.of(n);
+            int size = n * n;
+            for (int cell = 0; cell < size * size; cell++) {
+                Set<Integer> peers = new HashSet<>();
+                for (int p = 0; p < geometry.peerCount; p++) {
+                    peers.add(geometry.peers[cell * geometry.peerCount + p]);
+                }
+                assertEquals(geometry.peerCount, peers.size(), "Duplicate peer of " + cell);
+
+                for (int other = 0; other < size * size; other++) {
+                    boolean shares = other != cell && (geometry.rowOf[other] == geometry.rowOf[cell]
+                        || geometry.colOf[other] == geometry.colOf[cell] || geometry.boxOf[other] == geometry.boxOf[cell]);
+                    assertEquals(shares, peers.contains(other), n + ": " + cell + " and " + other);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testUnitsAndCoordinatesAgree() {
+        for (int n = 1; n <= Board.MAX_N; n++) {
+            Geometry geometry = Geometry.of(n);
+            int size = n * n;
+            for (int unit = 0; unit < 3 * size; unit++) {
+                for (int k = 0; k < size; k++) {
+                    int cell = geometry.unitCells[unit * size + k];
+                    assertEquals(unit, geometry.unitOf(cell, unit / size));
+                    if (unit >= 2 * size) assertEquals(k, geometry.boxPosOf[cell]);
+                }
+            }
+            for (int cell = 0; cell < size * size; cell++) {
+                int[] ui = geometry.uiOf;
+                assertEquals(geometry.rowOf[cell], ui[4 * cell] * n + ui[4 * cell + 2]);
+                assertEquals(geometry.colOf[cell], ui[4 * cell + 1] * n + ui[4 * cell + 3]);
+                assertEquals(geometry.boxOf[cell], ui[4 * cell] * n + ui[4 * cell + 1]);
+            }
+        }
+    }
+
+    @Test
+    void testSharedBetweenBoards() {
+        assertSame(new Board(3).geometry(), new Board(3).geometry());
+        assertSame(Geometry.of(4), new Board(4).geometry());
+    }
+}
@@ -0,0 +1,87 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HintTest {
+
+    @Test
+    void testNakedSingle() {
+        Board solved = BoardTest.load(3, BoardTest.EASY_9X9);
+        solved.solve();
+        Board board = new Board(solved);
+        board.removeDigit(4, 4);
+
+        Hint hint = board.hint();
+
+        assertNotNull(hint);
+        assertEquals(4, hint.getRow());
+        assertEquals(4, hint.getCol());
+        assertEquals(solved.valueAt(4, 4), hint.getValue());
+        assertFalse(hint.isHiddenSingle());
+        assertEquals("Naked single", hint.getTechniqueName());
+        assertEquals(8, hint.getCells().length);    // One filled peer for each other digit
+    }
+
+    @Test
+    void testHintsAreRight() {
+        for (String puzzle : TechniqueTest.PUZZLES) {
+            Board solved = BoardTest.load(3, puzzle);
+            solved.solve();
+            Board board = BoardTest.load(3, puzzle);
+
+            // Follow the hints as far as they go, checking each against the solution
+            for (Hint hint = board.hint(); hint != null; hint = board.hint()) {
+                assertEquals(solved.valueAt(hint.getRow(), hint.getCol()), hint.getValue(), hint + " in " + puzzle);
+                assertEquals(0, board.valueAt(hint.getRow(), hint.getCol()));
+                for (int cell : hint.getCells()) {
+                    assertNotEquals(hint.getRow() * 9 + hint.getCol(), cell);
+                }
+                assertTrue(board.placeDigit(hint.getRow(), hint.getCol(), hint.getValue()));
+            }
+        }
+    }
+
+    @Test
+    void testTechniqueHintLeavesBoardAlone() {
+        // Stalls on singles until a pointing pair clears the way
+        String puzzle = "000000012050400000000000030700600400001000000000080000920000800000510700000003000";
+        Board board = BoardTest.load(3, puzzle);
+        Hint hint = null;
+        while (true) {
+            Hint next = board.hint();
+            if (next == null || next.getTechnique() != null) {
+                hint = next;
+                break;
+            }
+            board.placeDigit(next.getRow(), next.getCol(), next.getValue());
+        }
+        assertNotNull(hint);
+
+        long[] before = possibilities(board);
+        Hint again = board.hint();
+
+        assertArrayEquals(before, possibilities(board));
+        assertEquals(hint.toString(), again.toString());
+        assertTrue(hint.getCells().length > 0);
+    }
+
+    @Test
+    void testNothingToHint() {
+        Board solved = BoardTest.load(3, BoardTest.EASY_9X9);
+        solved.solve();
+        assertNull(solved.hint());
+
+        // Nothing but guessing gets anywhere on an empty grid
+        assertNull(new Board(3).hint());
+    }
+
+    private static long[] possibilities(Board board) {
+        long[] masks = new long[81];
+        for (int cell = 0; cell < 81; cell++) {
+            masks[cell] = board.getPossibilities(cell / 9, cell % 9);
+        }
+        return masks;
+    }
+}
@@ -0,0 +1,89 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSolverTest {
+
+    @Test
+    void testSolvesHard9x9() {
+        for (int parallelism : new int[]{1, 2, 4}) {
+            Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+
+            board.solveParallel(parallelism);
+
+            assertTrue(board.isSolved(), "parallelism " + parallelism);
+            assertFalse(board.wasAborted());
+            BoardTest.assertValidSolution(board, 3, BoardTest.HARDER_9X9);
+            assertTrue(board.getSolveStats().getNodes() > 0, "Branch stats were not added up");
+        }
+    }
+
+    @Test
+    void testSolves25x25() {
+        int[][] givens = Puzzles.randomPuzzles(5, 1, 0.35, 7).get(0);
+        Board board = BoardTest.load(5, givens);
+
+        board.solveParallel(4);
+
+        assertTrue(board.isSolved());
+        BoardTest.assertValidSolution(board, 5, givens);
+    }
+
+    @Test
+    void testRecordsOneStepPerFilledCell() {
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+        int empty = board.getEmptyCount();
+
+        board.solveParallel(2);
+
+        assertEquals(empty, board.observableState.size());
+    }
+
+    @Test
+    void testUnsolvable() {
+        Board board = BoardTest.load(2, "1230000000040000");
+
+        board.solveParallel(2);
+
+        assertFalse(board.isSolved());
+        assertFalse(board.wasAborted());
+        assertEquals(12, board.getEmptyCount());
+    }
+
+    @Test
+    void testExpiredDeadlineAborts() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        int empty = board.getEmptyCount();
+        board.setDeadline(System.nanoTime() - 1);
+
+        board.solveParallel(2);
+
+        assertTrue(board.wasAborted());
+        assertFalse(board.isSolved());
+        assertEquals(empty, board.getEmptyCount());
+    }
+
+    @Test
+    void testRandomSearchOrders() {
+        for (Board.ValueOrder order : new Board.ValueOrder[]{Board.ValueOrder.ASCENDING, Board.ValueOrder.RANDOM}) {
+            Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+            board.setSearchOrder(Board.Branching.RANDOM_MOST_CONSTRAINED, order, 7);
+
+            board.solveParallel(2);
+
+            assertTrue(board.isSolved(), order.toString());
+            BoardTest.assertValidSolution(board, 3, BoardTest.HARDER_9X9);
+        }
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.setSearchOrder(Board.Branching.MOST_CONSTRAINED, Board.ValueOrder.RANDOM, 7);
+        board.solveParallel(2);
+        assertTrue(board.isSolved());
+    }
+
+    @Test
+    void testRejectsBadParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new Board(3).solveParallel(0));
+    }
+}
@@ -0,0 +1,128 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioSolverTest {
+
+    @Test
+    void testEverySearchOrderSolves() {
+        int[][] givens = Puzzles.randomPuzzles(4, 1, 0.6, 3).get(0);
+        for (Board.Branching branching : Board.Branching.values()) {
+            for (Board.ValueOrder order : Board.ValueOrder.values()) {
+                Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+                board.setRecording(false);
+                board.setSearchOrder(branching, order, 11);
+                board.solve();
+                BoardTest.assertValidSolution(board, 3, BoardTest.HARDER_9X9);
+
+                Board wide = BoardTest.load(4, givens);
+                wide.setSearchOrder(branching, order, 11);
+                wide.solve();
+                BoardTest.assertValidSolution(wide, 4, givens);
+            }
+        }
+    }
+
+    @Test
+    void testSeedMakesSolvesRepeatable() {
+        Board first = BoardTest.load(3, BoardTest.HARDER_9X9);
+        first.setSearchOrder(Board.Branching.RANDOM_MOST_CONSTRAINED, Board.ValueOrder.RANDOM, 42);
+        Board copy = new Board(first);     // Carries the search order over
+
+        long nodes = first.solve().getNodes();
+
+        assertEquals(Board.ValueOrder.RANDOM, copy.getValueOrder());
+        assertEquals(nodes, copy.solve().getNodes());
+    }
+
+    @Test
+    void testRaceSolvesAndCountsTheWinner() {
+        PortfolioSolver portfolio = new PortfolioSolver(PortfolioSolver.defaultStrategies(5));
+        for (String puzzle : new String[]{BoardTest.HARD_9X9, BoardTest.HARDER_9X9}) {
+            Board board = BoardTest.load(3, puzzle);
+            int empty = board.getEmptyCount();
+
+            PortfolioSolver.Strategy winner = board.solvePortfolio(portfolio);
+
+            assertNotNull(winner);
+            assertEquals(Board.Status.SOLVED, board.getStatus());
+            assertFalse(board.wasAborted());
+            BoardTest.assertValidSolution(board, 3, puzzle);
+            assertEquals(empty, board.observableState.size());
+            assertTrue(board.getSolveStats().getNodes() > 0, "The winner's stats were not carried over");
+        }
+
+        int[][] givens = Puzzles.randomPuzzles(5, 1, 0.35, 7).get(0);
+        Board wide = BoardTest.load(5, givens);
+        assertNotNull(wide.solvePortfolio(portfolio));
+        BoardTest.assertValidSolution(wide, 5, givens);
+
+        long wins = 0;
+        for (PortfolioSolver.Strategy strategy : portfolio.getStrategies()) {
+            wins += portfolio.getWins(strategy);
+        }
+        assertEquals(3, portfolio.getRaces());
+        assertEquals(3, wins);
+        assertTrue(portfolio.toString().startsWith("3 races: mcv "), portfolio.toString());
+    }
+
+    @Test
+    void testUnsolvableSettlesTheRace() {
+        PortfolioSolver portfolio = new PortfolioSolver(PortfolioSolver.defaultStrategies(3));
+        Board board = BoardTest.load(2, "1230000000040000");
+
+        assertNotNull(board.solvePortfolio(portfolio));
+
+        assertEquals(Board.Status.UNSOLVABLE, board.getStatus());
+        assertFalse(board.isSolved());
+        assertFalse(board.wasAborted());
+        assertEquals(12, board.getEmptyCount());
+    }
+
+    @Test
+    void testStoppedRaceHasNoWinner() {
+        PortfolioSolver portfolio = new PortfolioSolver(PortfolioSolver.defaultStrategies(3));
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        int empty = board.getEmptyCount();
+        board.setDeadline(System.nanoTime() - 1);
+
+        assertNull(board.solvePortfolio(portfolio));
+
+        assertEquals(Board.Status.BUDGET_EXHAUSTED, board.getStatus());
+        assertTrue(board.wasAborted());
+        assertEquals(empty, board.getEmptyCount());
+
+        board.setDeadline(0);
+        board.cancel();
+        assertNull(board.solvePortfolio(portfolio));
+        assertEquals(2, portfolio.getRaces());
+        for (PortfolioSolver.Strategy strategy : portfolio.getStrategies()) {
+            assertEquals(0, portfolio.getWins(strategy));
+        }
+    }
+
+    @Test
+    void testOneRacersNodeLimitLeavesTheOthersRunning() {
+        // On this puzzle the locked-candidates search needs 142 nodes, counting down only 50
+        List<PortfolioSolver.Strategy> defaults = PortfolioSolver.defaultStrategies(4);
+        PortfolioSolver portfolio = new PortfolioSolver(List.of(defaults.get(3), defaults.get(2)));
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.setNodeLimit(100);
+
+        assertSame(defaults.get(2), board.solvePortfolio(portfolio));
+        assertTrue(board.isSolved());
+        assertEquals(0, portfolio.getWins(defaults.get(3)));
+    }
+
+    @Test
+    void testRejectsEmptyPortfolios() {
+        assertThrows(IllegalArgumentException.class, () -> new PortfolioSolver(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> PortfolioSolver.defaultStrategies(0));
+        PortfolioSolver portfolio = new PortfolioSolver(PortfolioSolver.defaultStrategies(1));
+        assertThrows(IllegalArgumentException.class, () -> portfolio.getWins(PortfolioSolver.defaultStrategies(2).get(1)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.dooku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Puzzle loading and generation shared by the unit tests
+ */
+final class Puzzles {
+
+    private Puzzles() {
+    }
+
+    /**
+     * A board holding the givens (0 for empty)
+     *
+     * @throws IllegalArgumentException if a given clashes with an earlier one
+     */
+    static Board load(int n, int[][] givens) {
+        Board board = new Board(n);
+        for (int row = 0; row < givens.length; row++) {
+            for (int col = 0; col < givens.length; col++) {
+                if (givens[row][col] != 0 && !board.placeDigit(row / n, col / n, row % n, col % n, givens[row][col])) {
+                    throw new IllegalArgumentException("Given " + givens[row][col] + " at " + row + "," + col + " clashes");
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Shuffled pattern grids with a fraction of the cells blanked. Not guaranteed unique, but
+     * always solvable
+     */
+    static List<int[][]> randomPuzzles(int n, int count, double blankFraction, long seed) {
+        Random random = new Random(seed);
+        int size = n * n;
+        List<int[][]> puzzles = new ArrayList<>();
+        for (int p = 0; p < count; p++) {
+            int[] digits = permutation(size, random);
+            int[] rows = bandedPermutation(n, random);
+            int[] cols = bandedPermutation(n, random);
+
+            int[][] grid = new int[size][size];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int r = rows[row], c = cols[col];
+                    int value = digits[(n * (r % n) + r / n + c) % size] + 1;
+                    grid[row][col] = random.nextDouble() < blankFraction ? 0 : value;
+                }
+            }
+            puzzles.add(grid);
+        }
+        return puzzles;
+    }
+
+    private static int[] permutation(int length, Random random) {
+        int[] perm = new int[length];
+        for (int i = 0; i < length; i++) perm[i] = i;
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = perm[i]; perm[i] = perm[j]; perm[j] = tmp;
+        }
+        return perm;
+    }
+
+    // Permutes bands, then lines within each band - keeps the grid valid
+    private static int[] bandedPermutation(int n, Random random) {
+        int[] bands = permutation(n, random);
+        int[] perm = new int[n * n];
+        for (int band = 0; band < n; band++) {
+            int[] inner = permutation(n, random);
+            for (int k = 0; k < n; k++) perm[band * n + k] = bands[band] * n + inner[k];
+        }
+        return perm;
+    }
+}
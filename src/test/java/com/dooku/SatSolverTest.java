@@ -0,0 +1,101 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatSolverTest {
+
+    @Test
+    void testSolvesHard9x9() {
+        for (String puzzle : new String[]{BoardTest.HARD_9X9, BoardTest.HARDER_9X9}) {
+            Board board = BoardTest.load(3, puzzle);
+
+            board.solve(Board.Engine.SAT);
+
+            assertTrue(board.isSolved());
+            assertEquals(Board.Status.SOLVED, board.getStatus());
+            BoardTest.assertValidSolution(board, 3, puzzle);
+        }
+    }
+
+    @Test
+    void testSolvesSparse25x25() {
+        // Half blank: where the backtracker and dancing links take hundreds of times longer
+        int[][] givens = Puzzles.randomPuzzles(5, 1, 0.5, 99).get(0);
+        Board board = BoardTest.load(5, givens);
+        board.setRecording(false);
+
+        board.solve(Board.Engine.SAT);
+
+        assertTrue(board.isSolved());
+        BoardTest.assertValidSolution(board, 5, givens);
+        assertTrue(board.getSolveStats().getNodes() > 0);
+    }
+
+    @Test
+    void testStepsFillEveryEmptyCell() {
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+        int empty = board.getEmptyCount();
+
+        board.solve(Board.Engine.SAT);
+
+        // Singles propagated first, then one step per cell the SAT search filled
+        assertEquals(empty, board.observableState.size());
+        int[][] replay = new int[9][9];
+        StepLog.Cursor steps = board.observableState.cursor();
+        while (steps.next()) {
+            assertEquals(0, replay[steps.cell() / 9][steps.cell() % 9]);
+            replay[steps.cell() / 9][steps.cell() % 9] = steps.value();
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            if (BoardTest.HARD_9X9.charAt(cell) == '0') assertEquals(board.valueAt(cell / 9, cell % 9), replay[cell / 9][cell % 9]);
+        }
+    }
+
+    @Test
+    void testUnsolvableLeavesGivensOnly() {
+        Board board = BoardTest.load(2, "1230000000040000");
+
+        board.solve(Board.Engine.SAT);
+
+        assertFalse(board.isSolved());
+        assertEquals(Board.Status.UNSOLVABLE, board.getStatus());
+        assertEquals(12, board.getEmptyCount());
+
+        // The hard puzzle with one wrong digit: only search shows there's no way through
+        String wrong = "140000002090400050006000700050903000000070000000850040700000600030009080002000001";
+        Board search = BoardTest.load(3, wrong);
+        int empty = search.getEmptyCount();
+
+        search.solve(Board.Engine.SAT);
+
+        assertEquals(Board.Status.UNSOLVABLE, search.getStatus());
+        assertTrue(search.getSolveStats().getBacktracks() > 0);
+        assertEquals(empty, search.getEmptyCount());
+    }
+
+    @Test
+    void testStopsAndLeavesBoardUntouched() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        int empty = board.getEmptyCount();
+        board.cancel();
+
+        board.solve(Board.Engine.SAT);
+
+        assertTrue(board.wasAborted());
+        assertEquals(Board.Status.BUDGET_EXHAUSTED, board.getStatus());
+        assertEquals(empty, board.getEmptyCount());
+
+        board.solve(Board.Engine.SAT);
+        assertTrue(board.isSolved());
+    }
+
+    @Test
+    void testLuby() {
+        long[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], SatSolver.luby(i), "Term " + i);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionCacheTest {
+
+    @Test
+    void testEquivalentPuzzleIsAnsweredFromCache() {
+        SolutionCache cache = new SolutionCache(10);
+        Board first = BoardTest.load(3, BoardTest.HARD_9X9);
+        first.setSolutionCache(cache);
+        first.solve();
+
+        int[] shuffled = CanonicalizerTest.shuffle(3, CanonicalizerTest.parse(BoardTest.HARD_9X9), new Random(7));
+        String puzzle = toString(shuffled);
+        Board second = BoardTest.load(3, puzzle);
+        second.setSolutionCache(cache);
+        SolveStats stats = second.solve();
+
+        assertTrue(second.isSolved());
+        BoardTest.assertValidSolution(second, 3, puzzle);
+        assertEquals(0, stats.getNodes());      // Nothing was searched
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void testHitRecordsSteps() {
+        SolutionCache cache = new SolutionCache(10);
+        Board first = BoardTest.load(2, "1000000000000002");
+        first.setSolutionCache(cache);
+        first.solve();
+
+        Board second = BoardTest.load(2, "1000000000000002");
+        second.setSolutionCache(cache);
+        second.solve();
+
+        assertEquals(1, cache.getHits());
+        assertEquals(14, second.observableState.size());
+    }
+
+    @Test
+    void testUnsolvablePuzzlesAreRemembered() {
+        SolutionCache cache = new SolutionCache(10);
+        for (int i = 0; i < 2; i++) {
+            Board board = BoardTest.load(2, "1230000000040000");
+            board.setSolutionCache(cache);
+            board.solve();
+            assertFalse(board.isSolved());
+        }
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void testAbortedSolvesAreNotCached() {
+        SolutionCache cache = new SolutionCache(10);
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+        board.setSolutionCache(cache);
+        board.setDeadline(System.nanoTime() - 1);
+        board.solve();
+
+        assertTrue(board.wasAborted());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        SolutionCache cache = new SolutionCache(2);
+        solve(cache, BoardTest.EASY_9X9);
+        solve(cache, BoardTest.HARD_9X9);
+        solve(cache, BoardTest.EASY_9X9);       // Hit - now the most recent
+        solve(cache, BoardTest.HARDER_9X9);     // Evicts HARD
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        solve(cache, BoardTest.EASY_9X9);
+        assertEquals(2, cache.getHits());
+        solve(cache, BoardTest.HARD_9X9);
+        assertEquals(2, cache.getHits());
+    }
+
+    private static void solve(SolutionCache cache, String puzzle) {
+        Board board = BoardTest.load(3, puzzle);
+        board.setRecording(false);
+        board.setSolutionCache(cache);
+        board.solve();
+        assertTrue(board.isSolved());
+    }
+
+    private static String toString(int[] grid) {
+        StringBuilder puzzle = new StringBuilder();
+        for (int value : grid) puzzle.append(value);
+        return puzzle.toString();
+    }
+}
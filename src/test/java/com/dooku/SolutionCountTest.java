@@ -0,0 +1,79 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionCountTest {
+
+    @Test
+    void testWellFormedPuzzlesAreUnique() {
+        for (String puzzle : new String[]{BoardTest.EASY_9X9, BoardTest.HARD_9X9, BoardTest.HARDER_9X9}) {
+            Board board = BoardTest.load(3, puzzle);
+
+            assertEquals(1, board.countSolutions(10));
+            assertTrue(board.hasUniqueSolution());
+        }
+    }
+
+    @Test
+    void testCountsAllEmpty4x4Grids() {
+        assertEquals(288, new Board(2).countSolutions(1000));
+    }
+
+    @Test
+    void testStopsAtLimit() {
+        Board board = new Board(3);
+
+        assertEquals(2, board.countSolutions(2));
+        assertFalse(board.hasUniqueSolution());
+        assertEquals(50, board.countSolutions(50));
+    }
+
+    @Test
+    void testUnsolvableHasNoSolutions() {
+        assertEquals(0, BoardTest.load(2, "1230000000040000").countSolutions(2));
+    }
+
+    @Test
+    void testLeavesBoardUntouchedAndRecordsNothing() {
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+        int empty = board.getEmptyCount();
+
+        board.countSolutions(2);
+
+        assertEquals(empty, board.getEmptyCount());
+        assertTrue(board.observableState.isEmpty());
+        for (int idx = 0; idx < 81; idx++) {
+            assertEquals(BoardTest.HARD_9X9.charAt(idx) - '0', board.valueAt(idx / 9, idx % 9));
+        }
+
+        // The board still solves normally afterwards, with its steps recorded
+        board.solve();
+        assertTrue(board.isSolved());
+        assertFalse(board.observableState.isEmpty());
+    }
+
+    @Test
+    void testNodeLimitDoesNotCutCountsShort() {
+        for (int n : new int[]{2, 3}) {
+            Board board = new Board(n);
+            board.setNodeLimit(3);
+
+            assertEquals(2, board.countSolutions(2));
+            assertFalse(board.hasUniqueSolution());
+            assertFalse(board.wasAborted());
+        }
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.setNodeLimit(3);
+        assertTrue(board.hasUniqueSolution());
+
+        board.solve();     // Still applies to solving
+        assertEquals(Board.Status.BUDGET_EXHAUSTED, board.getStatus());
+    }
+
+    @Test
+    void testRejectsBadLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new Board(2).countSolutions(0));
+    }
+}
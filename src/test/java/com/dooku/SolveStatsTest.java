@@ -0,0 +1,85 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolveStatsTest {
+
+    @Test
+    void testBacktrackerCountsItsWork() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        int empty = board.getEmptyCount();
+        board.setTraceSearch(true);     // Keeps 9x9 on the generic backtracker
+
+        SolveStats stats = board.solve();
+
+        assertSame(board.getSolveStats(), stats);
+        assertTrue(board.isSolved());
+        assertFalse(stats.isRunning());
+        assertTrue(stats.getNodes() > 1);
+        assertTrue(stats.getBacktracks() > 0);
+        assertEquals(stats.getNodes() - 1, stats.getGuesses());     // Every node past the root is a guess
+        assertTrue(stats.getGuesses() - stats.getBacktracks() <= stats.getMaxDepth());
+        assertTrue(stats.getNakedSingles() + stats.getHiddenSingles() + stats.getGuesses() >= empty);
+        assertTrue(stats.getPropagationNanos() > 0);
+        assertEquals(stats.getElapsedNanos(), stats.getPropagationNanos() + stats.getBranchingNanos());
+        assertEquals(board.observableState.size(), stats.getPeakSteps());
+        assertEquals(board.observableState.memoryBytes(), stats.getPeakStepBytes());
+    }
+
+    @Test
+    void testKernelAndDancingLinksCountNodes() {
+        Board kernel = BoardTest.load(3, BoardTest.HARD_9X9);
+        kernel.setRecording(false);
+        SolveStats stats = kernel.solve();
+        assertTrue(stats.getNodes() > 1);
+        assertTrue(stats.getNakedSingles() + stats.getHiddenSingles() > 0);
+        assertEquals(0, stats.getPeakSteps());
+
+        Board dlx = BoardTest.load(3, BoardTest.HARD_9X9);
+        stats = dlx.solve(Board.Engine.DANCING_LINKS);
+        assertTrue(stats.getNodes() > 1);
+        assertEquals(stats.getNodes() - 1, stats.getGuesses());
+        assertEquals(0, stats.getPropagationNanos());
+    }
+
+    @Test
+    void testStatsResetPerSolve() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.solve();
+        long nodes = board.getSolveStats().getNodes();
+
+        assertEquals(1, board.countSolutions(1));     // Solved already - just the root
+        assertEquals(1, board.getSolveStats().getNodes());
+        assertEquals(0, board.getSolveStats().getPeakSteps());
+        assertTrue(nodes > 1);
+    }
+
+    @Test
+    void testProgressListenerSeesLiveStats() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        List<Boolean> running = new ArrayList<>();
+        List<Long> nodes = new ArrayList<>();
+        board.setProgressListener(stats -> {
+            running.add(stats.isRunning());
+            nodes.add(stats.getNodes());
+        }, 0);
+
+        board.solve();
+
+        assertTrue(running.size() >= 2);
+        assertTrue(running.get(0));                     // Reported mid-search...
+        assertFalse(running.get(running.size() - 1));   // ...and once at the end
+        assertEquals(board.getSolveStats().getNodes(), (long) nodes.get(nodes.size() - 1));
+
+        running.clear();
+        board.setProgressListener(null, 0);
+        board.solve();
+        assertTrue(running.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> board.setProgressListener(stats -> {}, -1));
+    }
+}
@@ -0,0 +1,82 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepChannelTest {
+
+    @Test
+    void testCapacityRoundsUpToPowerOfTwo() {
+        assertEquals(2, new StepChannel(1, StepChannel.OverflowPolicy.SAMPLE).capacity());
+        assertEquals(8, new StepChannel(5, StepChannel.OverflowPolicy.SAMPLE).capacity());
+        assertEquals(4096, new StepChannel(4096, StepChannel.OverflowPolicy.SAMPLE).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new StepChannel(0, StepChannel.OverflowPolicy.BLOCK));
+    }
+
+    @Test
+    void testPollEmpty() {
+        StepChannel channel = new StepChannel(4, StepChannel.OverflowPolicy.BLOCK);
+
+        assertEquals(StepChannel.EMPTY, channel.poll());
+        assertFalse(channel.isDrained());
+        channel.close();
+        assertTrue(channel.isDrained());
+    }
+
+    @Test
+    void testSampleDropsWhenFull() {
+        StepChannel channel = new StepChannel(4, StepChannel.OverflowPolicy.SAMPLE);
+
+        for (int i = 0; i < 10; i++) {
+            channel.publish(StepLog.pack(i, 1));
+        }
+
+        assertEquals(6, channel.droppedCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, StepLog.cellOf(channel.poll()));
+        }
+        assertEquals(StepChannel.EMPTY, channel.poll());
+    }
+
+    @Test
+    void testBlockDeliversEveryStepInOrder() throws InterruptedException {
+        StepChannel channel = new StepChannel(8, StepChannel.OverflowPolicy.BLOCK);
+        int total = 20_000;
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) channel.publish(StepLog.pack(i, i % 10));
+            channel.close();
+        });
+        producer.start();
+
+        List<Integer> received = new ArrayList<>();
+        while (!channel.isDrained()) {
+            long step = channel.poll();
+            if (step != StepChannel.EMPTY) received.add(StepLog.cellOf(step));
+        }
+        producer.join();
+
+        assertEquals(total, received.size());
+        for (int i = 0; i < total; i++) assertEquals(i, received.get(i));
+        assertEquals(0, channel.droppedCount());
+    }
+
+    @Test
+    void testBoardStreamsInsteadOfLogging() {
+        Board board = BoardTest.load(3, BoardTest.EASY_9X9);
+        StepChannel channel = new StepChannel(1 << 10, StepChannel.OverflowPolicy.SAMPLE);
+        board.setStepChannel(channel);
+
+        board.solve();
+        channel.close();
+
+        assertTrue(board.observableState.isEmpty());
+        int steps = 0;
+        while (channel.poll() != StepChannel.EMPTY) steps++;
+        assertEquals(51, steps);    // One placement per empty cell, no backtracking needed
+    }
+}
@@ -0,0 +1,66 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepLogTest {
+
+    @Test
+    void testPackRoundTrip() {
+        long step = StepLog.pack(624, 25);
+
+        assertEquals(624, StepLog.cellOf(step));
+        assertEquals(25, StepLog.valueOf(step));
+        assertEquals(0, StepLog.valueOf(StepLog.pack(80, 0)));
+    }
+
+    @Test
+    void testGrowsAndKeepsOrder() {
+        StepLog log = new StepLog(16);
+
+        for (int i = 0; i < 1000; i++) {
+            log.add(i % 81, i % 10);
+        }
+
+        assertEquals(1000, log.size());
+        StepLog.Cursor cursor = log.cursor();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(cursor.next());
+            assertEquals(i % 81, cursor.cell());
+            assertEquals(i % 10, cursor.value());
+        }
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void testClearKeepsCapacity() {
+        StepLog log = new StepLog(16);
+        for (int i = 0; i < 100; i++) log.add(i, 1);
+        long capacity = log.memoryBytes();
+
+        log.clear();
+
+        assertTrue(log.isEmpty());
+        assertFalse(log.cursor().next());
+        assertEquals(capacity, log.memoryBytes());
+    }
+
+    @Test
+    void testBytesPerStep() {
+        StepLog log = new StepLog(16);
+
+        assertEquals(0, log.bytesPerStep());
+        for (int i = 0; i < 16; i++) log.add(i, 1);
+        assertEquals(StepLog.BYTES_PER_STEP, log.bytesPerStep());
+    }
+
+    @Test
+    void testGetOutOfRange() {
+        StepLog log = new StepLog();
+        log.add(3, 4);
+
+        assertEquals(StepLog.pack(3, 4), log.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(1));
+    }
+}
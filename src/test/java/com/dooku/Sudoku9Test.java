@@ -0,0 +1,86 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Sudoku9Test {
+
+    static final String[] SEVENTEEN_CLUE = {
+        "000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+        "000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+        "000000012003600000000007000410020000000500300700000600280000040000300500000000000",
+    };
+
+    @Test
+    void testMatchesGenericSearch() {
+        String[] puzzles = {BoardTest.EASY_9X9, BoardTest.HARD_9X9, BoardTest.HARDER_9X9,
+            SEVENTEEN_CLUE[0], SEVENTEEN_CLUE[1], SEVENTEEN_CLUE[2]};
+        for (String puzzle : puzzles) {
+            Board generic = BoardTest.load(3, puzzle);
+            generic.setTraceSearch(true);   // Keeps it on the generic search
+            generic.solve();
+
+            Board fast = BoardTest.load(3, puzzle);
+            int empty = fast.getEmptyCount();
+            fast.solve();   // A plain solve dispatches to the kernel
+
+            assertTrue(fast.isSolved());
+            assertEquals(0, fast.getEmptyCount());
+            assertEquals(0, fast.getSolveStats().getPropagationNanos());    // The kernel doesn't split its time
+            assertEquals(empty, fast.observableState.size());   // One step per filled cell
+
+            Board silent = BoardTest.load(3, puzzle);
+            silent.setRecording(false);
+            silent.solve();
+            assertTrue(silent.observableState.isEmpty());
+            assertEquals(fast.getSolveStats().getNodes(), silent.getSolveStats().getNodes());
+            for (int row = 0; row < 9; row++) {
+                for (int col = 0; col < 9; col++) {
+                    assertEquals(generic.valueAt(row, col), fast.valueAt(row, col));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCountsSolutions() {
+        Board empty = new Board(3);
+        assertEquals(50, empty.countSolutions(50));
+        assertEquals(81, empty.getEmptyCount());
+
+        Board board = BoardTest.load(3, SEVENTEEN_CLUE[0]);
+        assertTrue(board.hasUniqueSolution());
+
+        // Dropping a clue from a minimal puzzle makes it ambiguous
+        Board loose = BoardTest.load(3, "000000000400000000020000000000050407008000300001090000300400200050100000000806000");
+        assertEquals(2, loose.countSolutions(2));
+    }
+
+    @Test
+    void testUnsolvableLeavesBoardUntouched() {
+        // Row 0 needs a 9 at (0,8), but column 8 already has one
+        Board board = BoardTest.load(3, "123456780000000009000000000000000000000000000000000000000000000000000000000000000");
+        board.setRecording(false);
+
+        board.solve();
+
+        assertFalse(board.isSolved());
+        assertEquals(0, board.valueAt(0, 8));
+        assertEquals(72, board.getEmptyCount());
+        assertEquals(0, board.countSolutions(5));
+    }
+
+    @Test
+    void testCancelledBeforeStart() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.setRecording(false);
+
+        board.cancel();
+        board.solve();
+
+        assertFalse(board.isSolved());
+        assertTrue(board.wasAborted());
+        assertEquals(BoardTest.HARDER_9X9.chars().filter(c -> c == '0').count(), board.getEmptyCount());
+    }
+}
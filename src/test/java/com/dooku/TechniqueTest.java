@@ -0,0 +1,166 @@
+package com.dooku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TechniqueTest {
+
+    static final String[] PUZZLES = {
+        BoardTest.EASY_9X9, BoardTest.HARD_9X9, BoardTest.HARDER_9X9,
+        Sudoku9Test.SEVENTEEN_CLUE[0], Sudoku9Test.SEVENTEEN_CLUE[1], Sudoku9Test.SEVENTEEN_CLUE[2],
+        "400000805030000000000700000020000060000080400000010000000603070500200000104000000",
+        "850002400720000009004000000000107002305000900040000000000080070017000000000036040",
+    };
+
+    @Test
+    void testNeverRemovesTheSolution() {
+        EnumSet<Technique> fired = EnumSet.noneOf(Technique.class);
+        for (String puzzle : PUZZLES) {
+            Board solved = BoardTest.load(3, puzzle);
+            solved.solve();
+
+            for (Technique technique : Technique.values()) {
+                Board board = BoardTest.load(3, puzzle);
+                board.setTechniques(EnumSet.of(technique));
+
+                board.propagate();
+
+                if (board.getTechniqueStats().getFires(technique) > 0) fired.add(technique);
+                for (int row = 0; row < 9; row++) {
+                    for (int col = 0; col < 9; col++) {
+                        int value = solved.valueAt(row, col);
+                        if (board.valueAt(row, col) != 0) {
+                            assertEquals(value, board.valueAt(row, col), technique + " misplaced " + row + "," + col);
+                        } else {
+                            assertNotEquals(0, board.getPossibilities(row, col) & 1 << value,
+                                technique + " removed the answer at " + row + "," + col + " in " + puzzle);
+                        }
+                    }
+                }
+            }
+        }
+        // The fish need patterns these puzzles don't reach with singles alone - see the tests below
+        assertEquals(EnumSet.complementOf(EnumSet.of(Technique.X_WING, Technique.SWORDFISH)), fired);
+    }
+
+    @Test
+    void testXWing() {
+        // Digit 1 only fits columns 0 and 5 in rows 0 and 4
+        Board board = new Board(3);
+        restrictRow(board, 0, 1, 0, 5);
+        restrictRow(board, 4, 1, 0, 5);
+
+        int removed = Technique.X_WING.apply(board);
+
+        assertEquals(14, removed);  // Seven other rows, two columns
+        for (int row = 0; row < 9; row++) {
+            boolean wing = row == 0 || row == 4;
+            assertEquals(wing, (board.getPossibilities(row, 0) & 1 << 1) != 0);
+            assertEquals(wing, (board.getPossibilities(row, 5) & 1 << 1) != 0);
+            assertEquals(!wing, (board.getPossibilities(row, 3) & 1 << 1) != 0);    // Other columns untouched
+        }
+        assertEquals(0, Technique.X_WING.apply(board));
+    }
+
+    @Test
+    void testSwordfish() {
+        // Digit 7 only fits columns 1, 4 and 8 across rows 0, 3 and 7, no two rows alike
+        Board board = new Board(3);
+        restrictRow(board, 0, 7, 1, 4);
+        restrictRow(board, 3, 7, 4, 8);
+        restrictRow(board, 7, 7, 1, 8);
+
+        assertEquals(0, Technique.X_WING.apply(board));
+        int removed = Technique.SWORDFISH.apply(board);
+
+        assertEquals(18, removed);  // Six other rows, three columns
+        for (int row : new int[]{1, 2, 4, 5, 6, 8}) {
+            for (int col : new int[]{1, 4, 8}) {
+                assertEquals(0, board.getPossibilities(row, col) & 1 << 7);
+            }
+        }
+    }
+
+    /**
+     * Eliminate a digit from every cell of a row except the given columns
+     */
+    private static void restrictRow(Board board, int row, int digit, int... keep) {
+        for (int col = 0; col < 9; col++) {
+            final int c = col;
+            if (Arrays.stream(keep).noneMatch(k -> k == c)) board.eliminate(row, col, 1 << digit);
+        }
+    }
+
+    @Test
+    void testFullChainSolvesWithFewerSteps() {
+        Board plain = BoardTest.load(3, BoardTest.HARDER_9X9);
+        plain.setTraceSearch(true);
+        plain.solve();
+
+        Board chained = BoardTest.load(3, BoardTest.HARDER_9X9);
+        chained.setTraceSearch(true);
+        chained.setTechniques(EnumSet.allOf(Technique.class));
+        chained.solve();
+
+        assertTrue(chained.isSolved());
+        BoardTest.assertValidSolution(chained, 3, BoardTest.HARDER_9X9);
+        assertTrue(chained.observableState.size() < plain.observableState.size());
+    }
+
+    @Test
+    void testSwitchingAndStats() {
+        Board board = BoardTest.load(3, BoardTest.HARD_9X9);
+        board.setTechniques(EnumSet.of(Technique.POINTING_PAIR, Technique.X_WING));
+        board.setTechniqueEnabled(Technique.X_WING, false);
+        board.setTechniqueEnabled(Technique.NAKED_PAIR, true);
+
+        assertEquals(EnumSet.of(Technique.POINTING_PAIR, Technique.NAKED_PAIR), board.getTechniques());
+
+        board.solve();
+
+        TechniqueStats stats = board.getTechniqueStats();
+        assertTrue(stats.getRuns(Technique.POINTING_PAIR) > 0);
+        assertEquals(0, stats.getRuns(Technique.X_WING));
+        assertTrue(stats.getFires(Technique.POINTING_PAIR) <= stats.getRuns(Technique.POINTING_PAIR));
+        assertTrue(stats.getEliminations(Technique.POINTING_PAIR) >= stats.getFires(Technique.POINTING_PAIR));
+        assertTrue(stats.getNanos(Technique.POINTING_PAIR) > 0);
+        assertTrue(stats.toString().contains("Pointing pair"));
+    }
+
+    @Test
+    void testCancelTakesBackEliminations() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.setTechniques(EnumSet.allOf(Technique.class));
+        long[] before = candidates(board);
+        board.setTraceSearch(true);
+        board.setStepChannel(BoardTest.afterSteps(10, board::cancel));
+
+        board.solve();
+
+        assertTrue(board.wasAborted());
+        assertArrayEquals(before, candidates(board));
+    }
+
+    @Test
+    void testSolvedBoardForgetsEliminations() {
+        Board board = BoardTest.load(3, BoardTest.HARDER_9X9);
+        board.setTechniques(Set.of(Technique.values()));
+        board.solve();
+        int value = board.valueAt(4, 4);
+
+        board.removeDigit(1, 1, 1, 1);
+
+        assertEquals(1L << value, board.getPossibilities(4, 4));
+    }
+
+    private static long[] candidates(Board board) {
+        long[] masks = new long[81];
+        for (int cell = 0; cell < 81; cell++) masks[cell] = board.getPossibilities(cell / 9, cell % 9);
+        return masks;
+    }
+}
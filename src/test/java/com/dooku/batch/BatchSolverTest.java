@@ -0,0 +1,207 @@
+package com.dooku.batch;
+
+import com.dooku.Board;
+import com.dooku.PortfolioSolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+
+    static final String HARD_9X9 =
+        "100007090030020008009600500005300900010080002600004000300000010040000007007000300";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSolvesFileInInputOrder() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("# comment lines and blank lines are skipped");
+        for (int i = 0; i < 600; i++) {     // Many small chunks, so ordering across workers matters
+            lines.add(i % 2 == 0 ? PuzzleFormatTest.EASY_9X9 : HARD_9X9);
+        }
+        lines.add("");
+        lines.add("0000000000000000");
+        lines.add("1230000000040000");      // Unsolvable
+        lines.add("not a puzzle");
+
+        Path input = dir.resolve("in.txt");
+        Path output = dir.resolve("out.txt");
+        Files.write(input, lines);
+
+        BatchSolver.Options options = options(input, output, 3, Board.Engine.BACKTRACKING);
+        options.chunkBytes = 2000;
+        BatchSolver.Report report = BatchSolver.run(options);
+
+        List<String> results = Files.readAllLines(output);
+        assertEquals(603, results.size());
+        for (int i = 0; i < 600; i++) {
+            assertSolves(i % 2 == 0 ? PuzzleFormatTest.EASY_9X9 : HARD_9X9, results.get(i));
+        }
+        assertEquals(16, results.get(600).length());
+        assertEquals(BatchSolver.UNSOLVABLE, results.get(601));
+        assertEquals(BatchSolver.INVALID, results.get(602));
+
+        assertEquals(601, report.getSolved());
+        assertEquals(1, report.getUnsolvable());
+        assertEquals(1, report.getInvalid());
+        assertTrue(report.puzzlesPerSecond() > 0);
+        assertTrue(report.getNodes() >= 601);   // At least the root of every solvable puzzle
+        assertTrue(report.percentile(50) <= report.percentile(99));
+    }
+
+    @Test
+    void testEnginesAgree() throws Exception {
+        Path input = dir.resolve("in.txt");
+        Files.write(input, List.of(HARD_9X9, PuzzleFormatTest.EASY_9X9));
+
+        BatchSolver.run(options(input, dir.resolve("bt.txt"), 1, Board.Engine.BACKTRACKING));
+        BatchSolver.run(options(input, dir.resolve("dlx.txt"), 2, Board.Engine.DANCING_LINKS));
+
+        assertEquals(Files.readAllLines(dir.resolve("bt.txt")), Files.readAllLines(dir.resolve("dlx.txt")));
+    }
+
+    @Test
+    void testGradeMode() throws Exception {
+        Path input = dir.resolve("in.txt");
+        Path output = dir.resolve("grades.txt");
+        Files.write(input, List.of(PuzzleFormatTest.EASY_9X9, HARD_9X9, "1230000000040000", "not a puzzle"));
+
+        BatchSolver.Options options = options(input, output, 2, Board.Engine.BACKTRACKING);
+        options.grade = true;
+        BatchSolver.Report report = BatchSolver.run(options);
+
+        List<String> results = Files.readAllLines(output);
+        assertEquals(List.of("1.5 EASY SINGLES 0", BatchSolver.UNSOLVABLE, BatchSolver.INVALID),
+            List.of(results.get(0), results.get(2), results.get(3)));
+        assertTrue(results.get(1).matches("\\d+\\.\\d EXTREME [A-Z_]+ [1-9]\\d*"), results.get(1));
+        assertEquals(2, report.getSolved());
+    }
+
+    @Test
+    void testCacheAnswersRepeats() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) lines.add(i % 2 == 0 ? PuzzleFormatTest.EASY_9X9 : HARD_9X9);
+        Path input = dir.resolve("in.txt");
+        Path output = dir.resolve("out.txt");
+        Files.write(input, lines);
+
+        BatchSolver.Options options = options(input, output, 1, Board.Engine.BACKTRACKING);
+        options.cacheSize = 10;
+        BatchSolver.Report report = BatchSolver.run(options);
+
+        List<String> results = Files.readAllLines(output);
+        for (int i = 0; i < 100; i++) {
+            assertSolves(lines.get(i), results.get(i));
+        }
+        assertEquals(98, report.getCache().getHits());
+        assertEquals(2, report.getCache().getMisses());
+    }
+
+    @Test
+    void testNodeLimitWritesPartials() throws Exception {
+        Path input = dir.resolve("in.txt");
+        Path output = dir.resolve("out.txt");
+        Files.write(input, List.of(PuzzleFormatTest.EASY_9X9, HARD_9X9));
+
+        BatchSolver.Options options = options(input, output, 1, Board.Engine.BACKTRACKING);
+        options.nodeLimit = 3;
+        BatchSolver.Report report = BatchSolver.run(options);
+
+        List<String> results = Files.readAllLines(output);
+        assertSolves(PuzzleFormatTest.EASY_9X9, results.get(0));   // Singles alone, one node
+        assertTrue(results.get(1).startsWith(BatchSolver.UNFINISHED));
+        String partial = results.get(1).substring(BatchSolver.UNFINISHED.length());
+        assertEquals(81, partial.length());
+        for (int idx = 0; idx < 81; idx++) {
+            if (HARD_9X9.charAt(idx) != '0') assertEquals(HARD_9X9.charAt(idx), partial.charAt(idx));
+        }
+        assertEquals(1, report.getSolved());
+        assertEquals(1, report.getUnfinished());
+        assertEquals(2, report.getTotal());
+    }
+
+    @Test
+    void testPortfolioCountsWins() throws Exception {
+        Path input = dir.resolve("in.txt");
+        Path output = dir.resolve("out.txt");
+        Files.write(input, List.of(HARD_9X9, PuzzleFormatTest.EASY_9X9, "1230000000040000"));
+
+        BatchSolver.Options options = options(input, output, 2, Board.Engine.BACKTRACKING);
+        options.portfolio = 3;
+        BatchSolver.Report report = BatchSolver.run(options);
+
+        List<String> results = Files.readAllLines(output);
+        assertSolves(HARD_9X9, results.get(0));
+        assertSolves(PuzzleFormatTest.EASY_9X9, results.get(1));
+        assertEquals(BatchSolver.UNSOLVABLE, results.get(2));
+        assertEquals(3, report.getPortfolio().getRaces());
+        long wins = 0;
+        for (PortfolioSolver.Strategy strategy : report.getPortfolio().getStrategies()) {
+            wins += report.getPortfolio().getWins(strategy);
+        }
+        assertEquals(3, wins);
+        assertTrue(report.toString().contains("portfolio 3 races"), report.toString());
+    }
+
+    @Test
+    void testParseArgs() {
+        BatchSolver.Options options = BatchSolver.parseArgs(
+            new String[]{"in.txt", "--threads", "4", "out.txt", "--engine", "dancing_links", "--progress", "5", "--grade", "--cache", "100"});
+
+        assertEquals(Path.of("in.txt"), options.input);
+        assertEquals(Path.of("out.txt"), options.output);
+        assertEquals(4, options.threads);
+        assertEquals(Board.Engine.DANCING_LINKS, options.engine);
+        assertEquals(5, options.progressSeconds);
+        assertTrue(options.grade);
+        assertEquals(100, options.cacheSize);
+
+        options = BatchSolver.parseArgs(new String[]{"in.txt", "out.txt", "--time-limit", "250", "--node-limit", "10000"});
+        assertEquals(250, options.timeLimitMillis);
+        assertEquals(10000, options.nodeLimit);
+        assertEquals(0, options.portfolio);
+        assertEquals(4, BatchSolver.parseArgs(new String[]{"in.txt", "out.txt", "--portfolio", "4"}).portfolio);
+
+        assertThrows(IllegalArgumentException.class, () -> BatchSolver.parseArgs(new String[]{"in.txt"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchSolver.parseArgs(new String[]{"a", "b", "--threads", "0"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchSolver.parseArgs(new String[]{"a", "b", "--engine"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchSolver.parseArgs(new String[]{"a", "b", "--cache", "-1"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchSolver.parseArgs(new String[]{"a", "b", "--time-limit", "-1"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchSolver.parseArgs(new String[]{"a", "b", "--portfolio", "-2"}));
+    }
+
+    private static BatchSolver.Options options(Path input, Path output, int threads, Board.Engine engine) {
+        BatchSolver.Options options = new BatchSolver.Options();
+        options.input = input;
+        options.output = output;
+        options.threads = threads;
+        options.engine = engine;
+        return options;
+    }
+
+    private static void assertSolves(String puzzle, String solution) {
+        assertEquals(81, solution.length());
+        for (int idx = 0; idx < 81; idx++) {
+            if (puzzle.charAt(idx) != '0') assertEquals(puzzle.charAt(idx), solution.charAt(idx));
+        }
+        for (int unit = 0; unit < 9; unit++) {
+            int rowSeen = 0, colSeen = 0, boxSeen = 0;
+            for (int k = 0; k < 9; k++) {
+                rowSeen |= 1 << (solution.charAt(unit * 9 + k) - '0');
+                colSeen |= 1 << (solution.charAt(k * 9 + unit) - '0');
+                boxSeen |= 1 << (solution.charAt(((unit / 3) * 3 + k / 3) * 9 + (unit % 3) * 3 + k % 3) - '0');
+            }
+            assertEquals(0x3FE, rowSeen);
+            assertEquals(0x3FE, colSeen);
+            assertEquals(0x3FE, boxSeen);
+        }
+    }
+}
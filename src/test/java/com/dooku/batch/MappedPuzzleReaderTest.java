@@ -0,0 +1,92 @@
+package com.dooku.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedPuzzleReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testChunksAreLineAlignedAndCoverTheFile() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append("line").append(i).append('\n');
+        }
+        text.append("x".repeat(500)).append('\n');     // Longer than a chunk
+        text.append("last");                            // No trailing newline
+        Path file = write(text.toString());
+
+        try (MappedPuzzleReader reader = new MappedPuzzleReader(file)) {
+            List<MappedPuzzleReader.Chunk> chunks = reader.chunks(64);
+
+            long expectedStart = 0;
+            List<String> lines = new ArrayList<>();
+            for (MappedPuzzleReader.Chunk chunk : chunks) {
+                assertEquals(expectedStart, chunk.start());
+                if (chunk.end() < reader.size()) {
+                    assertEquals('\n', text.charAt((int) chunk.end() - 1));
+                }
+                expectedStart = chunk.end();
+                chunk.forEachLine((bytes, offset, length) -> {
+                    byte[] line = new byte[length];
+                    bytes.get(offset, line);
+                    lines.add(new String(line, StandardCharsets.US_ASCII));
+                });
+            }
+            assertEquals(reader.size(), expectedStart);
+            assertEquals(102, lines.size());
+            assertEquals("line0", lines.get(0));
+            assertEquals("line99", lines.get(99));
+            assertEquals(500, lines.get(100).length());
+            assertEquals("last", lines.get(101));
+        }
+    }
+
+    @Test
+    void testSkipsBlankAndCommentLinesAndTrimsCrlf() throws Exception {
+        Path file = write("# header\r\n\r\n  1234  \r\n#1234\r\n5678\r\n");
+        List<String> lines = new ArrayList<>();
+
+        try (MappedPuzzleReader reader = new MappedPuzzleReader(file)) {
+            for (MappedPuzzleReader.Chunk chunk : reader.split(1)) {
+                chunk.forEachLine((bytes, offset, length) -> {
+                    byte[] line = new byte[length];
+                    bytes.get(offset, line);
+                    lines.add(new String(line, StandardCharsets.US_ASCII));
+                });
+            }
+        }
+
+        assertEquals(List.of("1234", "5678"), lines);
+    }
+
+    @Test
+    void testSplitIntoParts() throws Exception {
+        Path file = write("aaaa\nbbbb\ncccc\ndddd\n");
+
+        try (MappedPuzzleReader reader = new MappedPuzzleReader(file)) {
+            assertEquals(4, reader.split(4).size());
+            assertEquals(1, reader.split(1).size());
+            assertThrows(IllegalArgumentException.class, () -> reader.split(0));
+        }
+        try (MappedPuzzleReader empty = new MappedPuzzleReader(write(""))) {
+            assertEquals(0, empty.split(3).size());
+        }
+    }
+
+    private Path write(String text) throws Exception {
+        Path file = Files.createTempFile(dir, "puzzles", ".txt");
+        Files.writeString(file, text, StandardCharsets.US_ASCII);
+        return file;
+    }
+}
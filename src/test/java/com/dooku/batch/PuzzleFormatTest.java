@@ -0,0 +1,71 @@
+package com.dooku.batch;
+
+import com.dooku.Board;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleFormatTest {
+
+    static final String EASY_9X9 =
+        "530070000600195000098000060800060003400803001700020006060000280000419005000080079";
+
+    @Test
+    void testSizeForLength() {
+        assertEquals(4, PuzzleFormat.sizeForLength(16));
+        assertEquals(9, PuzzleFormat.sizeForLength(81));
+        assertEquals(16, PuzzleFormat.sizeForLength(256));
+        assertEquals(25, PuzzleFormat.sizeForLength(625));
+        assertEquals(-1, PuzzleFormat.sizeForLength(80));
+        assertEquals(-1, PuzzleFormat.sizeForLength(36));   // 6x6 has no square boxes
+        assertEquals(-1, PuzzleFormat.sizeForLength(1));
+    }
+
+    @Test
+    void testCharacterMapping() {
+        assertEquals(0, PuzzleFormat.valueOf('.'));
+        assertEquals(0, PuzzleFormat.valueOf('0'));
+        assertEquals(9, PuzzleFormat.valueOf('9'));
+        assertEquals(16, PuzzleFormat.valueOf('G'));
+        assertEquals(16, PuzzleFormat.valueOf('g'));
+        assertEquals(-1, PuzzleFormat.valueOf('*'));
+
+        for (int value = 0; value <= 25; value++) {
+            assertEquals(value, PuzzleFormat.valueOf(PuzzleFormat.charOf(value)));
+        }
+    }
+
+    @Test
+    void testLoadAndFormatRoundTrip() {
+        Board board = new Board(3);
+
+        assertTrue(PuzzleFormat.load(board, EASY_9X9));
+
+        assertEquals(EASY_9X9.replace('0', '.'), PuzzleFormat.format(board));
+    }
+
+    @Test
+    void testLoadFromBytes() {
+        ByteBuffer bytes = ByteBuffer.wrap(("xx" + EASY_9X9 + "\n").getBytes(StandardCharsets.US_ASCII));
+        Board board = new Board(3);
+
+        assertTrue(PuzzleFormat.load(board, bytes, 2, 81));
+
+        byte[] line = new byte[83];
+        assertEquals(82, PuzzleFormat.format(board, line, 1));
+        assertEquals(EASY_9X9.replace('0', '.'), new String(line, 1, 81, StandardCharsets.US_ASCII));
+        assertEquals(0, bytes.position());
+        assertFalse(PuzzleFormat.load(new Board(3), bytes, 0, 81));     // Starts on the 'x's
+    }
+
+    @Test
+    void testRejectsBadLines() {
+        assertFalse(PuzzleFormat.load(new Board(2), "12340000000000"));      // Wrong length
+        assertFalse(PuzzleFormat.load(new Board(2), "1x00000000000000"));    // Unknown character
+        assertFalse(PuzzleFormat.load(new Board(2), "5000000000000000"));    // Too big for 4x4
+        assertFalse(PuzzleFormat.load(new Board(2), "1100000000000000"));    // Clashing clues
+    }
+}
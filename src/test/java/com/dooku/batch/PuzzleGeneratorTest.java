@@ -0,0 +1,125 @@
+package com.dooku.batch;
+
+import com.dooku.Board;
+import com.dooku.DifficultyGrader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testPuzzlesHaveOneSolution() throws Exception {
+        for (int n = 2; n <= 4; n++) {
+            PuzzleGenerator.Options options = options(n, n == 4 ? 2 : 40, 2);
+            PuzzleGenerator.Report report = PuzzleGenerator.run(options);
+
+            List<String> puzzles = Files.readAllLines(options.output);
+            assertEquals(options.count, puzzles.size());
+            assertEquals(options.count, report.getGenerated());
+            for (String puzzle : puzzles) {
+                assertEquals(1, solutions(n, puzzle), puzzle);
+            }
+        }
+    }
+
+    @Test
+    void testCluesAreMinimal() {
+        PuzzleGenerator generator = new PuzzleGenerator(3);
+        for (long seed = 0; seed < 5; seed++) {
+            String puzzle = PuzzleFormat.format(generator.generate(seed));
+
+            for (int idx = 0; idx < puzzle.length(); idx++) {
+                if (puzzle.charAt(idx) == '.') continue;
+                String fewer = puzzle.substring(0, idx) + '.' + puzzle.substring(idx + 1);
+                assertTrue(solutions(3, fewer) > 1, "Clue " + idx + " of " + puzzle + " is redundant");
+            }
+        }
+    }
+
+    @Test
+    void testSymmetry() {
+        for (PuzzleGenerator.Symmetry symmetry : PuzzleGenerator.Symmetry.values()) {
+            PuzzleGenerator generator = new PuzzleGenerator(3);
+            generator.setSymmetry(symmetry);
+            Board puzzle = generator.generate(7);
+
+            for (int row = 0; row < 9; row++) {
+                for (int col = 0; col < 9; col++) {
+                    int partner = symmetry.partner(row, col, 9);
+                    assertEquals(puzzle.valueAt(row, col) == 0, puzzle.valueAt(partner / 9, partner % 9) == 0,
+                        symmetry + " broken at " + row + "," + col);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testTierTarget() {
+        for (DifficultyGrader.Tier tier : new DifficultyGrader.Tier[]{DifficultyGrader.Tier.EASY, DifficultyGrader.Tier.MEDIUM}) {
+            PuzzleGenerator generator = new PuzzleGenerator(3);
+            generator.setTier(tier);
+            for (long seed = 0; seed < 3; seed++) {
+                Board puzzle = generator.generate(seed);
+                assertNotNull(puzzle);
+
+                Board copy = new Board(3);
+                assertTrue(PuzzleFormat.load(copy, PuzzleFormat.format(puzzle)));
+                assertEquals(tier, DifficultyGrader.grade(copy).getTier());
+            }
+        }
+    }
+
+    @Test
+    void testSameSeedSameOutputAnyThreadCount() throws Exception {
+        PuzzleGenerator.Options single = options(3, 50, 1);
+        single.seed = 1234;
+        PuzzleGenerator.Options pooled = options(3, 50, 3);
+        pooled.seed = 1234;
+        pooled.output = dir.resolve("pooled.txt");
+
+        PuzzleGenerator.run(single);
+        PuzzleGenerator.run(pooled);
+
+        assertEquals(Files.readAllLines(single.output), Files.readAllLines(pooled.output));
+    }
+
+    @Test
+    void testParseArgs() {
+        PuzzleGenerator.Options options = PuzzleGenerator.parseArgs(new String[]{
+            "out.txt", "--size", "16", "--count", "5", "--seed", "9", "--symmetry", "rotational", "--tier", "hard"});
+
+        assertEquals(Path.of("out.txt"), options.output);
+        assertEquals(4, options.n);
+        assertEquals(5, options.count);
+        assertEquals(9, options.seed);
+        assertEquals(PuzzleGenerator.Symmetry.ROTATIONAL, options.symmetry);
+        assertEquals(DifficultyGrader.Tier.HARD, options.tier);
+
+        assertThrows(IllegalArgumentException.class, () -> PuzzleGenerator.parseArgs(new String[]{"out.txt", "--size", "10"}));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleGenerator.parseArgs(new String[]{"--count", "5"}));
+    }
+
+    private PuzzleGenerator.Options options(int n, int count, int threads) {
+        PuzzleGenerator.Options options = new PuzzleGenerator.Options();
+        options.output = dir.resolve("puzzles" + n + ".txt");
+        options.n = n;
+        options.count = count;
+        options.threads = threads;
+        return options;
+    }
+
+    private static long solutions(int n, String puzzle) {
+        Board board = new Board(n);
+        assertTrue(PuzzleFormat.load(board, puzzle));
+        return board.countSolutions(2);
+    }
+}